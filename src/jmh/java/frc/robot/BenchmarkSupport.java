@@ -0,0 +1,45 @@
+package frc.robot;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+
+import edu.wpi.first.hal.HAL;
+import edu.wpi.first.wpilibj.simulation.DriverStationSim;
+
+/**
+ * Shared setup for benchmarks that need the robot code to think it's running.
+ *
+ * We start the WPILib HAL in simulation mode, which swaps every piece of hardware
+ * (CAN motor controllers, DIO, joysticks, the driver station) for an in-memory
+ * stand-in, so the real robot classes can run on a desktop with nothing plugged in.
+ */
+public class BenchmarkSupport {
+
+    private static boolean initialized;
+
+    /**
+     * Starts the simulated HAL and pretends the driver station has enabled
+     * the robot in teleop. Safe to call more than once.
+     */
+    public static synchronized void initializeHal() {
+        if (initialized) {
+            return;
+        }
+        if (!HAL.initialize(500, 0)) {
+            throw new IllegalStateException("failed to initialize the simulated HAL");
+        }
+        DriverStationSim.setDsAttached(true);
+        DriverStationSim.setAutonomous(false);
+        DriverStationSim.setEnabled(true);
+        DriverStationSim.notifyNewData();
+        initialized = true;
+    }
+
+    /**
+     * Throws away anything printed to System.err (e.g. by the Logger), so we're
+     * measuring our code and not the speed of the terminal.
+     */
+    public static void silenceConsole() {
+        System.setErr(new PrintStream(OutputStream.nullOutputStream()));
+    }
+}
@@ -0,0 +1,59 @@
+package frc.robot;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import edu.wpi.first.wpilibj.simulation.DriverStationSim;
+import edu.wpi.first.wpilibj.simulation.XboxControllerSim;
+import frc.robot.util.PeriodicTasks;
+
+/**
+ * Measures a full teleop loop (teleopPeriodic followed by robotPeriodic, which
+ * is what TimedRobot does every 20ms, plus whichever periodic tasks are due)
+ * with every subsystem running and the driver's sticks pushed so the drive code
+ * has work to do. The robot has to be enabled, or the scheduler won't run the
+ * teleop commands.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class RobotTeleopBenchmark {
+
+    private Robot robot;
+
+    @Setup
+    public void setup() {
+        BenchmarkSupport.initializeHal();
+        BenchmarkSupport.silenceConsole();
+
+        XboxControllerSim driver = new XboxControllerSim(Robot.DRIVER_PORT);
+        driver.setLeftX(0.3);
+        driver.setLeftY(-0.6);
+        driver.setRightX(0.2);
+        driver.notifyNewData();
+        XboxControllerSim specialOps = new XboxControllerSim(Robot.SPECIAL_OPS_PORT);
+        specialOps.setLeftY(0.2);
+        specialOps.notifyNewData();
+        DriverStationSim.setEnabled(true);
+        DriverStationSim.notifyNewData();
+
+        robot = new Robot();
+        robot.robotInit();
+        robot.teleopInit();
+    }
+
+    @Benchmark
+    public void teleopLoop() {
+        robot.refreshSensors();
+        robot.teleopPeriodic();
+        robot.robotPeriodic();
+        PeriodicTasks.runDue();
+    }
+}
@@ -0,0 +1,39 @@
+package frc.robot.motors;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import frc.robot.BenchmarkSupport;
+
+/**
+ * Measures one pass of the indexer's position loop, against a simulated Spark Max.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class PositionClosedLoopMotorBenchmark {
+
+    private PositionClosedLoopMotor motor;
+
+    @Setup
+    public void setup() {
+        BenchmarkSupport.initializeHal();
+        BenchmarkSupport.silenceConsole();
+        motor = new PositionClosedLoopMotor("Benchmark", 40);
+        MotorConfigurator.awaitCompletion();
+        motor.setMaxSpeed(0.5);
+        motor.setTargetPosition(40.0);
+    }
+
+    @Benchmark
+    public void updateSpeed() {
+        motor.updateSpeed();
+    }
+}
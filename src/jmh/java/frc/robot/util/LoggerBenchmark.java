@@ -0,0 +1,47 @@
+package frc.robot.util;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import frc.robot.BenchmarkSupport;
+
+/**
+ * Measures what Logger.log() costs the caller (i.e. the robot loop), both for
+ * the common case of the same message over and over, and for a stream of
+ * different messages.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class LoggerBenchmark {
+
+    private int counter;
+
+    @Setup
+    public void setup() {
+        BenchmarkSupport.silenceConsole();
+    }
+
+    @TearDown
+    public void tearDown() {
+        Logger.flush(1.0);
+    }
+
+    @Benchmark
+    public void repeatedMessage() {
+        Logger.log("climber: extender won't go too high ...");
+    }
+
+    @Benchmark
+    public void uniqueMessage() {
+        Logger.log("shooter: sped up launch wheel to ", counter++);
+    }
+}
@@ -0,0 +1,65 @@
+package frc.robot.util;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Benchmarks for the math helpers that get called from the control loops.
+ * Inputs come from a pre-generated table so the JIT can't fold them away.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class MathUtilBenchmark {
+
+    private static final int SIZE = 1024;
+
+    private double[] values;
+    private double[] angles;
+    private int index;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(3373);
+        values = new double[SIZE];
+        angles = new double[SIZE];
+        for (int i=0; i<SIZE; i++) {
+            values[i] = random.nextDouble() * 200.0 - 100.0;
+            angles[i] = random.nextDouble() * 1080.0 - 540.0;
+        }
+    }
+
+    private int next() {
+        index = (index + 1) & (SIZE - 1);
+        return index;
+    }
+
+    @Benchmark
+    public double floorMod() {
+        return MathUtil.floorMod(angles[next()], 360);
+    }
+
+    @Benchmark
+    public double inverseLerp() {
+        return MathUtil.inverseLerp(-50.0, 50.0, values[next()]);
+    }
+
+    @Benchmark
+    public double normalise() {
+        return MathUtil.normalise(values[next()], -25.0, 75.0);
+    }
+
+    @Benchmark
+    public boolean isClockwiseRotationNearer() {
+        int i = next();
+        return MathUtil.isClockwiseRotationNearer(angles[i], angles[(i + 7) & (SIZE - 1)]);
+    }
+}
@@ -0,0 +1,127 @@
+package frc.robot;
+
+import edu.wpi.first.hal.HAL;
+import edu.wpi.first.wpilibj.Timer;
+import edu.wpi.first.wpilibj.simulation.DriverStationSim;
+import edu.wpi.first.wpilibj.simulation.SimHooks;
+import frc.robot.motors.MotorFactory;
+import frc.robot.motors.NamedMotor;
+import frc.robot.util.Logger;
+import frc.robot.util.MathUtil;
+import frc.robot.util.PeriodicTasks;
+
+/**
+ * Runs autonomous routines on a desktop, with no hardware, as fast as the computer
+ * can go. Instead of letting TimedRobot wait 20ms between loops, we pause the
+ * simulated FPGA clock and step it forward ourselves after each loop, so the robot
+ * code (which reads time from Timer.getFPGATimestamp()) sees a normal 50Hz match
+ * while the whole 15 seconds takes a fraction of that in real time.
+ *
+ * Run it with "gradlew simulateAuto", or "gradlew simulateAuto -PautoModes=DoubleShooter"
+ * to pick the routines. At the end of each routine we print the final state of
+ * every mechanism.
+ */
+public class AutonomousSimulator {
+
+    public static final double AUTONOMOUS_SECONDS = 15.0;
+    public static final String[] DEFAULT_MODES = { "SingleShooter", "DoubleShooter" };
+
+    private final Robot robot;
+    private final double period;
+
+    public AutonomousSimulator(Robot robot) {
+        this.robot = robot;
+        this.period = robot.getPeriod();
+    }
+
+    public static void main(String... args) {
+        if (!HAL.initialize(500, 0)) {
+            throw new IllegalStateException("failed to initialize the simulated HAL");
+        }
+        SimHooks.pauseTiming();
+        DriverStationSim.setDsAttached(true);
+
+        // there's only one set of (simulated) hardware, so one robot runs every routine
+        Robot robot = new Robot();
+        robot.robotInit();
+        robot.simulationInit();
+
+        AutonomousSimulator simulator = new AutonomousSimulator(robot);
+        String[] modes = args.length > 0 ? args : DEFAULT_MODES;
+        for (String mode : modes) {
+            simulator.run(mode);
+        }
+
+        Logger.flush(2.0);
+        System.exit(0);
+    }
+
+    /**
+     * Runs one autonomous routine from start to finish, then disables the
+     * robot and prints where everything ended up.
+     */
+    public void run(String mode) {
+        Logger.log("simulator: running ", mode);
+        robot.setAutoModeOverride(mode);
+
+        DriverStationSim.setAutonomous(true);
+        DriverStationSim.setEnabled(true);
+        DriverStationSim.notifyNewData();
+
+        long wallStart = System.nanoTime();
+        double simStart = Timer.getFPGATimestamp();
+        int loops = (int) Math.round(AUTONOMOUS_SECONDS / period);
+
+        robot.autonomousInit();
+        for (int i=0; i<loops; i++) {
+            // same order as TimedRobot's loopFunc()
+            robot.refreshSensors();
+            robot.autonomousPeriodic();
+            robot.robotPeriodic();
+            robot.simulationPeriodic();
+
+            // nothing runs TimedRobot's other callbacks here, so step the clock
+            // in small enough pieces to run the periodic tasks ourselves
+            double elapsed = 0.0;
+            while (elapsed < period) {
+                double step = Math.min(PeriodicTasks.getFastestPeriod(), period - elapsed);
+                SimHooks.stepTiming(step);
+                PeriodicTasks.runDue();
+                elapsed += step;
+            }
+        }
+
+        double simSeconds = Timer.getFPGATimestamp() - simStart;
+        double wallSeconds = (System.nanoTime() - wallStart) / 1e9;
+
+        DriverStationSim.setEnabled(false);
+        DriverStationSim.notifyNewData();
+        robot.disabledInit();
+
+        report(mode, simSeconds, wallSeconds);
+    }
+
+    private void report(String mode, double simSeconds, double wallSeconds) {
+        Logger.flush(2.0);
+        System.out.println("=== " + mode + " ===");
+        System.out.println("  simulated " + MathUtil.round(simSeconds, 2) + "s in "
+            + MathUtil.round(wallSeconds, 3) + "s (" + MathUtil.round(simSeconds / wallSeconds, 1) + "x real time)");
+        for (NamedMotor motor : MotorFactory.getAllMotors()) {
+            System.out.println("  " + motor.getName() + ": position=" + MathUtil.round(motor.getPosition(), 3)
+                + " velocity=" + MathUtil.round(motor.getVelocity(), 3));
+        }
+        double[] angles = robot.getSwerveAngles();
+        System.out.println("  swerve angles (FL, FR, BR, BL): " + MathUtil.round(angles[0], 3) + ", "
+            + MathUtil.round(angles[1], 3) + ", " + MathUtil.round(angles[2], 3) + ", " + MathUtil.round(angles[3], 3));
+        System.out.println("  odometry x=" + MathUtil.round(robot.getOdometry().getX(), 2)
+            + " y=" + MathUtil.round(robot.getOdometry().getY(), 2)
+            + " heading=" + MathUtil.round(Math.toDegrees(robot.getOdometry().getHeading()), 1));
+        System.out.println("  intake spinning=" + robot.getIntake().isSpinning());
+        System.out.println("  launch wheel enabled=" + robot.getShooter().isLaunchWheelEnabled()
+            + " target=" + robot.getShooter().getTargetLaunchSpeed()
+            + " shots pending=" + robot.getAutoShotsPending());
+        System.out.println("  climber resetting=" + robot.getClimber().isResetting()
+            + " extender=[" + robot.getClimber().getExtenderMin() + ", " + robot.getClimber().getExtenderMax() + "]"
+            + " rotator=[" + robot.getClimber().getRotatorMin() + ", " + robot.getClimber().getRotatorMax() + "]");
+    }
+}
@@ -9,6 +9,7 @@ public class Constants{
 
 
     public static final double wheelCircumference = 18.8495559215387594307759; //TODO measure this value
+    public static final double driveGearRatio = 6.75; //TODO measure this value (drive motor rotations per wheel rotation, not checked against the gearbox)
     //public static final double relativeEncoderRatio= 17.999954;
     public static final double relativeEncoderRatio= 17.9992371;
 
@@ -41,6 +42,15 @@ public class Constants{
     public static final PIDConstant ROTATE_BL_PID = new PIDConstant(1, 1e-6, 0, 1.56e-4, 0, -1, 1);
     public static final PIDConstant ROTATE_BR_PID = new PIDConstant(1, 1e-6, 0, 1.56e-4, 0, -1, 1);
 
+    //* Where the center of the hub is, relative to where the robot starts autonomous
+    // (x forward, y left, same units as wheelCircumference). NaN until it's been
+    // measured; until then the shooter isn't told any distance.
+    public static final double hubX = Double.NaN;
+    public static final double hubY = Double.NaN;
+
+    //* Swerve steering PID (what Robot has been using on the angle motors)
+    public static final PIDConstant STEERING_PID = new PIDConstant(1, 1e-4, 1, 0, 0, -1, 1);
+
     //* Encoder Positions 
     // Front left
     public static final double FLEncMin = 0.01171875; //0.0078125; //0.015625;
@@ -4,23 +4,53 @@
 
 package frc.robot;
 
-import com.revrobotics.RelativeEncoder;
-import com.revrobotics.SparkMaxPIDController;
-import com.revrobotics.CANSparkMax;
-import com.revrobotics.SparkMaxRelativeEncoder;
-import com.revrobotics.CANSparkMaxLowLevel.MotorType;
-
-import edu.wpi.first.cameraserver.CameraServer;
+import java.io.File;
+import java.io.IOException;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.BooleanSupplier;
+
+import com.revrobotics.REVPhysicsSim;
+
+import edu.wpi.first.math.system.plant.DCMotor;
+import edu.wpi.first.wpilibj.DriverStation;
+import edu.wpi.first.wpilibj.Filesystem;
+import edu.wpi.first.wpilibj.RobotController;
 import edu.wpi.first.wpilibj.TimedRobot;
-import edu.wpi.first.wpilibj.XboxController;
 import edu.wpi.first.wpilibj.smartdashboard.SendableChooser;
 import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
+import edu.wpi.first.wpilibj2.command.Command;
+import edu.wpi.first.wpilibj2.command.CommandScheduler;
+import edu.wpi.first.wpilibj2.command.FunctionalCommand;
+import edu.wpi.first.wpilibj2.command.StartEndCommand;
+import edu.wpi.first.wpilibj2.command.Subsystem;
+import edu.wpi.first.wpilibj2.command.button.Trigger;
+import frc.robot.auto.Timeline;
+import frc.robot.auto.TimelineCommand;
+import frc.robot.input.Bindings;
+import frc.robot.input.InputPlayback;
+import frc.robot.input.InputRecorder;
+import frc.robot.input.SnapshotController;
+import frc.robot.motors.MotorConfigurator;
 import frc.robot.motors.MotorFactory;
+import frc.robot.motors.SparkMaxOutput;
+import frc.robot.subsystems.CameraProfile;
+import frc.robot.subsystems.CameraSubsystem;
 import frc.robot.subsystems.ClimberSubsystem;
+import frc.robot.subsystems.DriveSubsystem;
 import frc.robot.subsystems.IntakeSubsystem;
 import frc.robot.subsystems.ShooterSubsystem;
+import frc.robot.subsystems.SwerveDrive;
+import frc.robot.subsystems.SwerveModule;
+import frc.robot.subsystems.SwerveOdometry;
+import frc.robot.subsystems.VisionSubsystem;
+import frc.robot.util.Dashboard;
+import frc.robot.util.FlightRecorder;
 import frc.robot.util.Logger;
-import edu.wpi.first.wpilibj.Timer;
+import frc.robot.util.LoopTimer;
+import frc.robot.util.PIDTuner;
+import frc.robot.util.PeriodicTasks;
+import frc.robot.util.SensorSnapshot;
 
 import frc.robot.newDrive;
 
@@ -53,40 +83,49 @@ public class Robot extends TimedRobot {
   public static final boolean USE_CAMERAS = true;
   public static final int FRONT_CAMERA_PORT = 0;
   public static final int BACK_CAMERA_PORT = 1;
+  public static final int BALL_CAMERA_PORT = 2;
+  public static final String DEFAULT_AUTO_MODE = "SingleShooter";
+
+  /** Diagnostics: count what every timed part of the loop allocates (see LoopTimer) */
+  public static final boolean TRACK_ALLOCATIONS = false;
+  public static final long ALLOCATION_BUDGET = 256; // bytes per run
+
+  /** Auto modes starting with this play back recorded driver inputs */
+  public static final String REPLAY_MODE = "Replay";
+  public static final String REPLAY_DIRECTORY = "replay";
 
-  public static double MaxSpeed = 0.3;
   public static double MaxRotation = 5;
-  public static double RotationLimit = 3;
   public static double StrafeLimit = .25;
   public static double MagicRotateAngle = 2.72;
 
-  private XboxController specialops;
+  private SnapshotController specialops;
   private IntakeSubsystem intake;
   private ShooterSubsystem shooter;
   private ClimberSubsystem climber;
-  private CANSparkMax frontLeftAngleMotor;
-  private CANSparkMax frontLeftDriveMotor;
-  private CANSparkMax frontRightDriveMotor;
-  private CANSparkMax frontRightAngleMotor;
-  private CANSparkMax backLeftAngleMotor;
-  private CANSparkMax backLeftDriveMotor;
-  private CANSparkMax backRightDriveMotor;
-  private CANSparkMax backRightAngleMotor;
-  private SparkMaxPIDController frontLeftPidController;
-  private SparkMaxPIDController frontRightPidController;
-  private SparkMaxPIDController backRightPidController;
-  private SparkMaxPIDController backLeftPidController;
-  private RelativeEncoder frontLeftAngleEncoder;
-  private RelativeEncoder frontRightAngleEncoder;
-  private RelativeEncoder backRightAngleEncoder;
-  private RelativeEncoder backLeftAngleEncoder;
-  private XboxController drive_control;
-  private double turboFactor;
-  private double reverseFactor;
-  private double kP, kI, kD, kIz, kFF, kMaxOutput, kMinOutput;
-  private double autonomousStart;
+  private CameraSubsystem cameras;
+  private VisionSubsystem vision;
+  private SwerveDrive swerve;
+  private SwerveOdometry odometry;
+  private DriveSubsystem drive;
+  private SnapshotController drive_control;
+  private Bindings bindings;
+  private PIDTuner steeringTuner;
   private SendableChooser<String> autoMode;
-  private long teleopRounds;
+  private String autoModeOverride;
+  private String autoProgram;
+  private Map<String, TimelineCommand> autoCommands;
+  private TimelineCommand autoCommand;
+  private Command intakeTeleop;
+  private Command shooterTeleop;
+  private Command climberTeleop;
+  private Command driveTeleop;
+  private Command climberReset;
+  private InputRecorder inputRecorder;
+  private InputPlayback inputPlayback;
+  private FlightRecorder recorder;
+  private LoopTimer recorderTimer;
+  private LoopTimer schedulerTimer;
+  private Dashboard.StringEntry motorTestingEntry;
 
 /* ==============================================================================
   _____   ____  ____   ____ _______ 
@@ -100,135 +139,192 @@ public class Robot extends TimedRobot {
 
   @Override
   public void robotInit() {
-    SmartDashboard.putString("MotorTesting: ", "None");
-    drive_control = new XboxController(DRIVER_PORT);
-    intake = new IntakeSubsystem(drive_control, INTAKE_PORT);
-    
-    specialops = new XboxController(SPECIAL_OPS_PORT);
-    shooter = new ShooterSubsystem(specialops, SHOOTER_LAUNCH_PORT, SHOOTER_INDEXER_PORT, SHOOTER_SWITCH_PORT);
-    climber = new ClimberSubsystem(specialops, CLIMBER_EXTENDER_PORT, CLIMBER_EXTENDER_SWITCH, CLIMBER_ROTATOR_PORT, CLIMBER_ROTATOR_SWITCH, () -> {
-      shooter.disabledInit();
+    motorTestingEntry = Dashboard.string("MotorTesting: ");
+    motorTestingEntry.set("None");
+    recorderTimer = LoopTimer.named("Flight Recorder");
+    schedulerTimer = LoopTimer.named("Scheduler");
+    if (TRACK_ALLOCATIONS) {
+      LoopTimer.trackAllocations(ALLOCATION_BUDGET);
+    }
+    drive_control = new SnapshotController(DRIVER_PORT);
+    specialops = new SnapshotController(SPECIAL_OPS_PORT);
+    bindings = new Bindings(drive_control, specialops);
+    intake = new IntakeSubsystem(bindings, INTAKE_PORT);
+    shooter = new ShooterSubsystem(bindings, SHOOTER_LAUNCH_PORT, SHOOTER_INDEXER_PORT, SHOOTER_SWITCH_PORT);
+    climber = new ClimberSubsystem(bindings, CLIMBER_EXTENDER_PORT, CLIMBER_EXTENDER_SWITCH, CLIMBER_ROTATOR_PORT, CLIMBER_ROTATOR_SWITCH);
+
+    swerve = new SwerveDrive(
+      new int[] { FRONT_LEFT_DRIVE_ID, FRONT_RIGHT_DRIVE_ID, BACK_RIGHT_DRIVE_ID, BACK_LEFT_DRIVE_ID },
+      new int[] { FRONT_LEFT_ANGLE_ID, FRONT_RIGHT_ANGLE_ID, BACK_RIGHT_ANGLE_ID, BACK_LEFT_ANGLE_ID },
+      Constants.robotLength, Constants.robotWidth, MagicRotateAngle, MaxRotation, Constants.STEERING_PID);
+    odometry = new SwerveOdometry(swerve);
+    odometry.start();
+    drive = new DriveSubsystem(bindings, swerve, odometry);
+
+    // in teleop, each subsystem has a command running it from the controllers
+    intakeTeleop = timedCommand("Intake Teleop", intake::teleopInit, intake::telopPeriodic, () -> false, intake);
+    shooterTeleop = timedCommand("Shooter Teleop", shooter::teleopInit, shooter::teleopPeriodic, () -> false, shooter);
+    climberTeleop = timedCommand("Climber Teleop", climber::teleopInit, climber::teleopPeriodic, () -> false, climber);
+    driveTeleop = timedCommand("Drive Teleop", drive::teleopInit, drive::teleopPeriodic, () -> false, drive);
+
+    // autonomous always resets the climber, alongside whatever else it's doing
+    climberReset = timedCommand("Climber Auto", climber::autonomousInit, climber::autonomousPeriodic, () -> !climber.isResetting(), climber);
+
+    // once we start climbing, the intake and shooter are shut down (which takes
+    // them away from their teleop commands) until the robot is disabled
+    new Trigger(climber::isClimbing).whenActive(new StartEndCommand(() -> {
       intake.disabledInit();
-    });
-
-    frontLeftAngleMotor = new CANSparkMax(FRONT_LEFT_ANGLE_ID, MotorType.kBrushed);
-    frontLeftDriveMotor = new CANSparkMax(FRONT_LEFT_DRIVE_ID, MotorType.kBrushless);
-    frontRightAngleMotor = new CANSparkMax(FRONT_RIGHT_ANGLE_ID, MotorType.kBrushed);
-    frontRightDriveMotor = new CANSparkMax(FRONT_RIGHT_DRIVE_ID, MotorType.kBrushless);
-    backRightAngleMotor = new CANSparkMax(BACK_RIGHT_ANGLE_ID, MotorType.kBrushed);
-    backRightDriveMotor = new CANSparkMax(BACK_RIGHT_DRIVE_ID, MotorType.kBrushless);
-    backLeftDriveMotor = new CANSparkMax(BACK_LEFT_DRIVE_ID, MotorType.kBrushless);
-    backLeftAngleMotor = new CANSparkMax(BACK_LEFT_ANGLE_ID, MotorType.kBrushed);
-
-    frontLeftPidController = frontLeftAngleMotor.getPIDController();
-    frontRightPidController = frontRightAngleMotor.getPIDController();
-    backRightPidController = backRightAngleMotor.getPIDController();
-    backLeftPidController = backLeftAngleMotor.getPIDController();
-
-    // RESET SPARK MAX
-    frontLeftAngleMotor.restoreFactoryDefaults();
-    frontRightAngleMotor.restoreFactoryDefaults();
-    frontLeftDriveMotor.restoreFactoryDefaults();
-    frontRightDriveMotor.restoreFactoryDefaults();
-    backLeftAngleMotor.restoreFactoryDefaults();
-    backRightAngleMotor.restoreFactoryDefaults();
-    backLeftDriveMotor.restoreFactoryDefaults();
-    backRightDriveMotor.restoreFactoryDefaults();
-
-    frontRightDriveMotor.setOpenLoopRampRate(1.0);
-    frontLeftDriveMotor.setOpenLoopRampRate(1.0);
-    backRightDriveMotor.setOpenLoopRampRate(1.0);
-    backLeftDriveMotor.setOpenLoopRampRate(1.0);
+      shooter.disabledInit();
+    }, () -> {}, intake, shooter));
 
+    // every routine in deploy/auto shows up as an option
+    autoCommands = new TreeMap<>();
+    for (Timeline timeline : Timeline.loadAll().values()) {
+      autoCommands.put(timeline.getName(), new TimelineCommand(timeline, drive, intake, shooter));
+    }
     autoMode = new SendableChooser<>();
-    autoMode.setDefaultOption("SingleShooter", "SingleShooter");
-    autoMode.addOption("DoubleShooter", "DoubleShooter");
-    autoMode.addOption("ClimberOnly", "ClimberOnly");
-    autoMode.addOption("IntakeOnly", "IntakeOnly");
+    for (String name : autoCommands.keySet()) {
+      if (DEFAULT_AUTO_MODE.equals(name)) {
+        autoMode.setDefaultOption(name, name);
+      } else {
+        autoMode.addOption(name, name);
+      }
+    }
+    // plus the last teleop we recorded, and any recordings in deploy/replay
+    autoMode.addOption(REPLAY_MODE, REPLAY_MODE);
+    File[] replays = new File(Filesystem.getDeployDirectory(), REPLAY_DIRECTORY).listFiles((dir, name) -> name.endsWith(".rec"));
+    if (replays != null) {
+      for (File replay : replays) {
+        String name = REPLAY_MODE + " " + replay.getName().replace(".rec", "");
+        autoMode.addOption(name, name);
+      }
+    }
     SmartDashboard.putData("Auto Mode", autoMode);
+    inputRecorder = new InputRecorder(drive_control, specialops);
 
-    frontLeftAngleEncoder = frontLeftAngleMotor.getEncoder(SparkMaxRelativeEncoder.Type.kQuadrature, 104);
-    frontLeftAngleEncoder.setPosition(0);
-    frontLeftAngleEncoder.setInverted(false);
-
-    frontRightAngleEncoder = frontRightAngleMotor.getEncoder(SparkMaxRelativeEncoder.Type.kQuadrature, 104);
-    frontRightAngleEncoder.setInverted(false);
-    frontRightAngleEncoder.setPosition(0);
-
-    backRightAngleEncoder = backRightAngleMotor.getEncoder(SparkMaxRelativeEncoder.Type.kQuadrature, 104);
-    backRightAngleEncoder.setInverted(false);
-    backRightAngleEncoder.setPosition(0);
-
-    backLeftAngleEncoder = backLeftAngleMotor.getEncoder(SparkMaxRelativeEncoder.Type.kQuadrature, 104);
-    backLeftAngleEncoder.setInverted(false);
-    backLeftAngleEncoder.setPosition(0);
-
-    turboFactor = 1.0;
-    reverseFactor = 1.0;
-
-    // kP = 75; 
-    // kI = 1e-3;
-    // kD = 1; 
-    // kIz = 0; 
-    // kFF = 0; 
-    // kMaxOutput = 1; 
-    // kMinOutput = -1;
-
-    kP = 1; 
-    kI = 1e-4;
-    kD = 1; 
-    kIz = 0; 
-    kFF = 0; 
-    kMaxOutput = 1; 
-    kMinOutput = -1;
-
-    frontLeftPidController.setFeedbackDevice(frontLeftAngleEncoder);
-    frontRightPidController.setFeedbackDevice(frontRightAngleEncoder);
-    backRightPidController.setFeedbackDevice(backRightAngleEncoder);
-    backLeftPidController.setFeedbackDevice(backLeftAngleEncoder);
-
-    frontLeftPidController.setP(kP);
-    frontRightPidController.setP(kP);
-    backRightPidController.setP(kP);
-    backLeftPidController.setP(kP);
-
-    frontLeftPidController.setI(kI);
-    frontRightPidController.setI(kI);
-    backRightPidController.setI(kI);
-    backLeftPidController.setI(kI);
-
-    frontLeftPidController.setD(kD);
-    frontRightPidController.setD(kD);
-    backRightPidController.setD(kD);
-    backLeftPidController.setD(kD);
-
-    frontLeftPidController.setIZone(kIz);
-    frontRightPidController.setIZone(kIz);
-    backRightPidController.setIZone(kIz);
-    backLeftPidController.setIZone(kIz);
-
-    frontLeftPidController.setFF(kFF);
-    frontRightPidController.setFF(kFF);
-    backRightPidController.setFF(kFF);
-    backLeftPidController.setFF(kFF);
-
-    frontLeftPidController.setOutputRange(kMinOutput, kMaxOutput);
-    frontRightPidController.setOutputRange(kMinOutput, kMaxOutput);
-    backRightPidController.setOutputRange(kMinOutput, kMaxOutput);
-    backLeftPidController.setOutputRange(kMinOutput, kMaxOutput);
-
-    
-    frontLeftAngleMotor.setInverted(true);
-    frontRightAngleMotor.setInverted(true);
-    backLeftAngleMotor.setInverted(true);
-    backRightAngleMotor.setInverted(true);
+    // the steering gains can be tuned live from the dashboard in test mode
+    steeringTuner = new PIDTuner("steering", "", Constants.STEERING_PID);
+    for (int i=0; i<swerve.getModuleCount(); i++) {
+      steeringTuner.bind(swerve.getModule(i).getSteerController());
+    }
 
     if (USE_CAMERAS && !isSimulation()) {
-      CameraServer.startAutomaticCapture("Front", FRONT_CAMERA_PORT);
-      CameraServer.startAutomaticCapture("Back", BACK_CAMERA_PORT);  
+      cameras = new CameraSubsystem(bindings);
+      cameras.addDriverCamera("Front", FRONT_CAMERA_PORT, CameraProfile.DRIVER);
+      cameras.addDriverCamera("Back", BACK_CAMERA_PORT, CameraProfile.GLANCE);
+      vision = new VisionSubsystem(cameras.addVisionCamera("Ball", BALL_CAMERA_PORT, CameraProfile.VISION));
+      vision.start();
+    }
+
+    recorder = new FlightRecorder();
+    MotorFactory.addFlightChannels(recorder);
+    for (int i=0; i<swerve.getModuleCount(); i++) {
+      SwerveModule module = swerve.getModule(i);
+      recorder.addChannel(module.getName()+" Angle Position", module::getSteerPosition);
+    }
+    for (int i=0; i<swerve.getModuleCount(); i++) {
+      SwerveModule module = swerve.getModule(i);
+      recorder.addChannel(module.getName()+" Drive Output", module::getDriveOutputValue);
+    }
+    recorder.addChannel("Odometry X", odometry::getX);
+    recorder.addChannel("Odometry Y", odometry::getY);
+    recorder.addChannel("Odometry Heading", odometry::getHeading);
+    recorder.addChannel("Intake Spinning?", intake::isSpinning);
+    recorder.addChannel("Intake Target RPM", intake::getTargetSpeed);
+    recorder.addChannel("Launch Spinning?", shooter::isLaunchWheelEnabled);
+    recorder.addChannel("Launch Target RPM", shooter::getTargetLaunchSpeed);
+    recorder.addChannel("Launch Ready?", shooter::isLaunchWheelReady);
+    recorder.addChannel("Auto Shots Pending", this::getAutoShotsPending);
+    recorder.addChannel("Ball Sensor", shooter::isBallAvailable);
+    if (vision != null) {
+      recorder.addChannel("Ball Found?", vision::hasTarget);
+      recorder.addChannel("Ball Angle", vision::getTargetAngle);
+      recorder.addChannel("Ball Distance", vision::getTargetDistance);
+    }
+    recorder.addChannel("Extender Min", climber::getExtenderMin);
+    recorder.addChannel("Extender Max", climber::getExtenderMax);
+    recorder.addChannel("Rotator Min", climber::getRotatorMin);
+    recorder.addChannel("Rotator Max", climber::getRotatorMax);
+    recorder.addChannel("Driver Left X", drive_control::getLeftX);
+    recorder.addChannel("Driver Left Y", drive_control::getLeftY);
+    recorder.addChannel("Driver Right X", drive_control::getRightX);
+    recorder.addChannel("Driver Right Trigger", drive_control::getRightTriggerAxis);
+    recorder.addChannel("Special Ops Left Y", specialops::getLeftY);
+    recorder.addChannel("Special Ops Right X", specialops::getRightX);
+    recorder.start();
+
+    // the dashboard goes out 10x per second, after everything that fills it in
+    // (the subsystems added their own tasks when we made them, above)
+    PeriodicTasks.add("Dashboard", PeriodicTasks.TELEMETRY, () -> {
+      LoopTimer.publishSummary();
+      Dashboard.flush();
+    });
+
+    // every controller has its frame profile by now (the motors themselves are
+    // still being configured in the background, and we wait for that in
+    // whichever mode init comes first)
+    MotorFactory.logFrameProfiles();
+    Dashboard.number("CAN Status Load %").set(MotorFactory.estimateStatusBusLoad() * 100.0);
+    PeriodicTasks.start(this);
+  }
+
+  /**
+   * Takes a snapshot of every sensor before TimedRobot calls any of the periodic
+   * functions, so everything in this loop sees the same readings.
+   */
+  @Override
+  protected void loopFunc() {
+    refreshSensors();
+    super.loopFunc();
+  }
+
+  /**
+   * Reads every sensor and both controllers (or the next frames of a recording),
+   * and picks up the latest pose from the odometry thread (which also tells the
+   * shooter how far away the hub is, if we know where it is)
+   */
+  void refreshSensors() {
+    SensorSnapshot.refresh();
+    odometry.update();
+    long now = RobotController.getFPGATime();
+    if (inputPlayback != null) {
+      inputPlayback.update(now);
+    } else {
+      drive_control.update();
+      specialops.update();
+    }
+    inputRecorder.sample(now);
+    if (!Double.isNaN(Constants.hubX)) {
+      shooter.setTargetDistance(Math.hypot(Constants.hubX - odometry.getX(), Constants.hubY - odometry.getY()));
     }
+  }
 
-    autonomousStart = 0.0;
+  /**
+   * Makes a command that runs one subsystem (or several), timing each loop
+   *
+   * @param init called when the command starts
+   * @param periodic called every loop while it's running
+   * @param finished checked after every loop; the command stops when it's true
+   */
+  private static Command timedCommand(String timerName, Runnable init, Runnable periodic,
+      BooleanSupplier finished, Subsystem... requirements) {
+    LoopTimer timer = LoopTimer.named(timerName);
+    return new FunctionalCommand(init, () -> {
+      timer.start();
+      periodic.run();
+      timer.stop();
+    }, interrupted -> {}, finished, requirements);
+  }
+
+  /**
+   * Tells the vision which color of ball is ours (the driver station only
+   * knows for sure once we're connected to the field, so we check every time
+   * we're enabled)
+   */
+  private void updateAlliance() {
+    if (vision != null) {
+      vision.setAlliance(DriverStation.getAlliance());
+    }
   }
 
   /**
@@ -240,21 +336,18 @@ public class Robot extends TimedRobot {
    */
   @Override
   public void robotPeriodic() {
-    if (intake != null) {
-      intake.robotPeriodic();
-    }
-    if (shooter != null) {
-      shooter.robotPeriodic();
-    }
-    if (climber != null) {
-      climber.robotPeriodic();
-    }
-    SmartDashboard.putNumber("FL Angle Position", frontLeftAngleEncoder.getPosition());
-    SmartDashboard.putNumber("FR Angle Position", frontRightAngleEncoder.getPosition());
-    SmartDashboard.putNumber("BR Angle Position", backRightAngleEncoder.getPosition());
-    SmartDashboard.putNumber("BL Angle Position", backLeftAngleEncoder.getPosition());
-    SmartDashboard.putBoolean("Drive Reversed?", reverseFactor < -1.0);
-    SmartDashboard.putNumber("Drive Counter", teleopRounds);
+
+    // runs every subsystem's periodic(), then whichever commands are scheduled
+    // (a subsystem with no command just gets its periodic())
+    schedulerTimer.start();
+    CommandScheduler.getInstance().run();
+    schedulerTimer.stop();
+
+    recorderTimer.start();
+    recorder.sample();
+    recorderTimer.stop();
+
+    // the dashboard is published by its own task (see robotInit), not every loop
   }
 
 /* ==============================================================================
@@ -267,91 +360,74 @@ public class Robot extends TimedRobot {
                                                                                                                                               
 ============================================================================== */
 
+  /**
+   * Forces a specific autonomous program instead of whatever is selected on the
+   * dashboard (e.g. for running autonomous in a headless simulation). Pass null
+   * to go back to using the dashboard.
+   */
+  public void setAutoModeOverride(String mode) {
+    autoModeOverride = mode;
+  }
+
   @Override
   public void autonomousInit() {
+    MotorConfigurator.awaitCompletion();
+    updateAlliance();
 
-    // always clock the start of autonomous mode, and run the climber
-    autonomousStart = Timer.getFPGATimestamp();
-    climber.autonomousInit();
+    // wherever we are when autonomous starts is the origin, facing forward
+    odometry.resetPose(0.0, 0.0, 0.0);
 
-    Logger.log("starting auto program ", autoMode.getSelected());
+    // always reset the climber
+    CommandScheduler.getInstance().schedule(climberReset);
 
-    if ("DoubleShooter".equalsIgnoreCase(autoMode.getSelected())) {
-      intake.doubleShooterInit();
-      shooter.doubleShooterInit();
-    } else if ("IntakeOnly".equalsIgnoreCase(autoMode.getSelected())) {
-      intake.singleShooterInit();
-    } else if ("SingleShooter".equalsIgnoreCase(autoMode.getSelected())) {
-      intake.singleShooterInit();
-      shooter.singleShooterInit();
+    // the program can't change during autonomous, so we only look it up once
+    autoProgram = autoModeOverride != null ? autoModeOverride : autoMode.getSelected();
+    autoCommand = null;
+    if (autoProgram != null && autoProgram.startsWith(REPLAY_MODE)) {
+      startReplay(autoProgram);
+      return;
+    }
+    autoCommand = autoProgram == null ? null : autoCommands.get(autoProgram);
+    if (autoCommand == null) {
+      Logger.log("no auto program named ", autoProgram, ", only running the climber");
+      return;
     }
+    Logger.log("starting auto program ", autoProgram);
+    CommandScheduler.getInstance().schedule(autoCommand);
   }
 
   /** This function is called periodically during autonomous. */
   @Override
   public void autonomousPeriodic() {
-
-    // always run the climber
-    climber.autonomousPeriodic();
-
-    double seconds = Timer.getFPGATimestamp() - autonomousStart;
-
-    if ("DoubleShooter".equalsIgnoreCase(autoMode.getSelected())) {
-      intake.doubleShooterPeriodic(seconds);
-      shooter.doubleShooterPeriodic(seconds);
-      doubleShooterPeriodic(seconds);
-    } else if ("IntakeOnly".equalsIgnoreCase(autoMode.getSelected())) {
-      intake.doubleShooterPeriodic(seconds);
-    } else if ("SingleShooter".equalsIgnoreCase(autoMode.getSelected())) {
-      intake.singleShooterPeriodic(seconds);
-      shooter.singleShooterPeriodic(seconds);
-      singleShooterPeriodic(seconds);
-    }
+    // the scheduler (in robotPeriodic) runs the routine and the climber reset
   }
 
-  private void singleShooterPeriodic(double seconds) {
-    if (seconds < 0.2) {   // let the intake wheel wind up a bit
-      forwardBy(0.0, 0.0);
-    } else if (seconds < 0.4) {   // ooch forward (picks up speed)
-      forwardBy(1.0, 0.0);
-    } else if (seconds < 0.9) {   // ooch backwards (drops intake frame)
-      forwardBy(-1.0, 0.0);
-    } else if (seconds < 6.1) {  // wait in place for intake to drop
-      forwardBy(0.0, 0.0);
-    } else if (seconds < 9.4) {   // exit the tarmac
-      forwardBy(0.1, 0.0);
-    } else {
-      forwardBy(0.0, 0.0);
-    }
-  }
-
-  private void doubleShooterPeriodic(double seconds) {
-    if (seconds < 0.3) {   // let the intake wheel wind up a bit
-      forwardBy(0.0, 0.0);
-    } else if (seconds < 0.5) {   // ooch forward (picks up speed)
-      forwardBy(1.0, 0.0);
-    } else if (seconds < 1.0) {   // ooch backwards (drops intake frame)
-      forwardBy(-1.0, 0.0);
-    } else if (seconds < 6.2) {  // wait in place for intake to drop
-      forwardBy(0.0, 0.0);
-    } else if (seconds < 9.0) {   // go get a ball
-      forwardBy(0.1, 0.0);
-    } else if (seconds < 9.3) {   // reorient slightly to shoot
-      forwardBy(0.1, 0.0);
-    } else {
-      forwardBy(0.0, 0.0);
+  /**
+   * Loads a recording of driver inputs and starts playing it. "Replay" on its own
+   * is the last teleop we recorded; "Replay something" is deploy/replay/something.rec.
+   *
+   * A replay runs the same commands as teleop (other than the climber's, since
+   * it's busy resetting), with the recorded inputs.
+   */
+  private void startReplay(String program) {
+    String name = program.substring(REPLAY_MODE.length()).trim();
+    File file = name.isEmpty()
+      ? InputRecorder.getDefaultFile()
+      : new File(new File(Filesystem.getDeployDirectory(), REPLAY_DIRECTORY), name + ".rec");
+    try {
+      inputPlayback = InputPlayback.load(file);
+    } catch (IOException e) {
+      Logger.log("unable to load replay ", file, " (", e, "), only running the climber");
+      return;
     }
+    Logger.log("starting auto program ", program);
+    CommandScheduler.getInstance().schedule(intakeTeleop, shooterTeleop, driveTeleop);
+    inputPlayback.start(RobotController.getFPGATime(), drive_control, specialops);
   }
 
-  private void forwardBy(double speed, double angle) {
-    frontLeftPidController.setReference(0, CANSparkMax.ControlType.kPosition);
-    frontRightPidController.setReference(0, CANSparkMax.ControlType.kPosition);
-    backRightPidController.setReference(angle, CANSparkMax.ControlType.kPosition);
-    backLeftPidController.setReference(angle, CANSparkMax.ControlType.kPosition);  
-    frontLeftDriveMotor.set(-speed);
-    frontRightDriveMotor.set(speed);
-    backLeftDriveMotor.set(-speed);
-    backRightDriveMotor.set(speed);
+  /** @return how many balls the running auto routine still wants to fire */
+  int getAutoShotsPending() {
+    return autoCommand == null ? 0 : autoCommand.getShotsPending();
   }
 
 /* ==============================================================================
@@ -366,173 +442,104 @@ public class Robot extends TimedRobot {
 
   @Override
   public void teleopInit() {
-    teleopRounds = 0L;
-    shooter.teleopInit();
-    intake.teleopInit();
-    climber.teleopInit();
+    MotorConfigurator.awaitCompletion();
+    updateAlliance();
+
+    // these take over from anything autonomous left running
+    CommandScheduler.getInstance().schedule(intakeTeleop, shooterTeleop, climberTeleop, driveTeleop);
+
+    // every teleop gets recorded, so a good run can be replayed as an auto
+    inputRecorder.start(RobotController.getFPGATime());
   }
 
   @Override
   public void teleopPeriodic() {
+    // the scheduler (in robotPeriodic) runs the teleop commands
+  }
 
-    teleopRounds++;
+/* ==============================================================================
+  _____ _____  _____         ____  _      ______ _____  
+ |  __ \_   _|/ ____|  /\   |  _ \| |    |  ____|  __ \ 
+ | |  | || | | (___   /  \  | |_) | |    | |__  | |  | |
+ | |  | || |  \___ \ / /\ \ |  _ <| |    |  __| | |  | |
+ | |__| || |_ ____) / ____ \| |_) | |____| |____| |__| |
+ |_____/_____|_____/_/    \_\____/|______|______|_____/ 
+                                                                                                              
+============================================================================== */
 
-    SmartDashboard.updateValues();
-    //LOGGING TO SD ~ NOT NEEDED
-    SmartDashboard.putNumber("Front Left Swerve Wheel Output", frontLeftDriveMotor.get());
-    SmartDashboard.putNumber("Back Left Swerve Wheel Output", backLeftDriveMotor.get());
-    if (intake != null) {
-      intake.telopPeriodic();
+  @Override
+  public void disabledInit() {
+    if (recorder != null) {
+      recorder.sync();
     }
-    if (shooter != null) {
-      shooter.teleopPeriodic();      
+    if (inputRecorder != null) {
+      inputRecorder.stopAndSave();
     }
-    if (climber != null) {
-      climber.teleopPeriodic();
+    if (inputPlayback != null) {
+      inputPlayback.stop();
+      inputPlayback = null;
     }
+    LoopTimer.logMatchSummary();
 
-    double rightX = drive_control.getRightX();
-    double leftX = drive_control.getLeftX();
-    double leftY = drive_control.getLeftY();
+    // the scheduler would cancel everything on its next run anyway, but we
+    // want the subsystems stopped right now
+    CommandScheduler.getInstance().cancelAll();
+    intake.disabledInit();
+    shooter.disabledInit();
+    climber.disabledInit();
 
-    // if someone hits start, we'll invert the "front" of the vehicle for driving
-    if (drive_control.getStartButtonPressed()) {
-      reverseFactor = reverseFactor * -1.0;
-    }
+    // make sure the first command after we're enabled again actually goes out
+    SparkMaxOutput.invalidateAll();
+  }
 
-    // if someone is holding the right trigger, we'll double speed
-    if (drive_control.getRightTriggerAxis() > 0.5) {
-      turboFactor = 2.0;
-    } else {
-      turboFactor = 1.0;
-    }
+/* ==============================================================================
+   _____ _____ __  __ 
+  / ____|_   _|  \/  |
+ | (___   | | | \  / |
+  \___ \  | | | |\/| |
+  ____) |_| |_| |  | |
+ |_____/|_____|_|  |_|
+                                                            
+============================================================================== */
 
-    if (drive_control.getRightBumper()) {
-      AimBot(rightX);
-      return;
-    }
+  @Override
+  public void simulationInit() {
+    MotorFactory.simulationInit();
 
-    if (drive_control.getLeftBumper()) {
-      macDrive(leftX, leftY, rightX);
-      return;
+    // the swerve motors aren't made by the factory; only the brushless drive
+    // motors can be simulated (the angle motors are brushed)
+    for (int i=0; i<swerve.getModuleCount(); i++) {
+      REVPhysicsSim.getInstance().addSparkMax(swerve.getModule(i).getDriveMotor(), DCMotor.getNEO(1));
     }
-    
-    driveDrive(leftX, leftY, rightX);
   }
 
-  /* --------------------------------------------------
-     Mac Drive turns like this (strafing):
-         \---\
-         |   |
-         \---\
-    -------------------------------------------------- */
-
-  public void macDrive(double leftX, double leftY, double rightX) {
-
-    double moveSpeed = Math.sqrt(leftX * leftX + leftY * leftY) * MaxSpeed * turboFactor * reverseFactor;
-    double turnAngle = leftX * leftX * leftX * MaxRotation * reverseFactor;    
-
-    if (drive_control.getLeftY() > 0) {
-      frontLeftDriveMotor.set(moveSpeed);
-      frontRightDriveMotor.set(-moveSpeed);
-      backRightDriveMotor.set(-moveSpeed);
-      backLeftDriveMotor.set(moveSpeed);
-      frontLeftPidController.setReference(turnAngle, CANSparkMax.ControlType.kPosition);
-      frontRightPidController.setReference(turnAngle, CANSparkMax.ControlType.kPosition);
-      backRightPidController.setReference(turnAngle, CANSparkMax.ControlType.kPosition);
-      backLeftPidController.setReference(turnAngle, CANSparkMax.ControlType.kPosition);            
-    }
-
-    if (drive_control.getLeftY() < 0) {
-      frontLeftDriveMotor.set(-moveSpeed);
-      frontRightDriveMotor.set(moveSpeed);
-      backRightDriveMotor.set(moveSpeed);
-      backLeftDriveMotor.set(-moveSpeed);
-      frontLeftPidController.setReference(turnAngle, CANSparkMax.ControlType.kPosition);
-      frontRightPidController.setReference(turnAngle, CANSparkMax.ControlType.kPosition);
-      backRightPidController.setReference(turnAngle, CANSparkMax.ControlType.kPosition);
-      backLeftPidController.setReference(turnAngle, CANSparkMax.ControlType.kPosition);            
-    }
+  @Override
+  public void simulationPeriodic() {
+    REVPhysicsSim.getInstance().run();
   }
 
-  /* --------------------------------------------------
-     Drive Drive turns like this (car steering):
-         /---/
-         |   |
-         \---\
-    -------------------------------------------------- */
-
-  public void driveDrive(double leftX, double leftY, double rightX) {
-
-    double moveSpeed = Math.sqrt(leftX * leftX + leftY * leftY) * MaxSpeed * turboFactor * reverseFactor;
-    double turnAngle = rightX * rightX * rightX * MaxRotation * reverseFactor;   
-    if (turnAngle > RotationLimit) {
-      turnAngle = RotationLimit;
-    }
-
-    if (drive_control.getLeftY() > 0) {
-      frontLeftDriveMotor.set(moveSpeed);
-      frontRightDriveMotor.set(-moveSpeed);
-      backRightDriveMotor.set(-moveSpeed);
-      backLeftDriveMotor.set(moveSpeed);
-      frontLeftPidController.setReference(turnAngle, CANSparkMax.ControlType.kPosition);
-      frontRightPidController.setReference(turnAngle, CANSparkMax.ControlType.kPosition);
-      backRightPidController.setReference(-turnAngle, CANSparkMax.ControlType.kPosition);
-      backLeftPidController.setReference(-turnAngle, CANSparkMax.ControlType.kPosition);            
-    }
+  IntakeSubsystem getIntake() {
+    return intake;
+  }
 
-    if (drive_control.getLeftY() < 0) {
-      frontLeftDriveMotor.set(-moveSpeed);
-      frontRightDriveMotor.set(moveSpeed);
-      backRightDriveMotor.set(moveSpeed);
-      backLeftDriveMotor.set(-moveSpeed);
-      frontLeftPidController.setReference(-turnAngle, CANSparkMax.ControlType.kPosition);
-      frontRightPidController.setReference(-turnAngle, CANSparkMax.ControlType.kPosition);
-      backRightPidController.setReference(turnAngle, CANSparkMax.ControlType.kPosition);
-      backLeftPidController.setReference(turnAngle, CANSparkMax.ControlType.kPosition);            
-    }
+  ShooterSubsystem getShooter() {
+    return shooter;
   }
 
-  /* --------------------------------------------------
-     AimBot turns like this (rotation):
-         /---\
-         |   |
-         \---/
-    -------------------------------------------------- */
-
-  public void AimBot(double rightX) {
-    double rotateSpeed = -rightX / 8.0 * turboFactor;
-    frontLeftDriveMotor.set(rotateSpeed);
-    frontRightDriveMotor.set(rotateSpeed);
-    backLeftDriveMotor.set(rotateSpeed);
-    backRightDriveMotor.set(rotateSpeed);  
-    frontLeftPidController.setReference(-MagicRotateAngle,  CANSparkMax.ControlType.kPosition);
-    frontRightPidController.setReference(MagicRotateAngle,  CANSparkMax.ControlType.kPosition);
-    backRightPidController.setReference(-MagicRotateAngle,  CANSparkMax.ControlType.kPosition);
-    backLeftPidController.setReference(MagicRotateAngle,  CANSparkMax.ControlType.kPosition);
+  ClimberSubsystem getClimber() {
+    return climber;
   }
 
-/* ==============================================================================
-  _____ _____  _____         ____  _      ______ _____  
- |  __ \_   _|/ ____|  /\   |  _ \| |    |  ____|  __ \ 
- | |  | || | | (___   /  \  | |_) | |    | |__  | |  | |
- | |  | || |  \___ \ / /\ \ |  _ <| |    |  __| | |  | |
- | |__| || |_ ____) / ____ \| |_) | |____| |____| |__| |
- |_____/_____|_____/_/    \_\____/|______|______|_____/ 
-                                                                                                              
-============================================================================== */
+  SwerveOdometry getOdometry() {
+    return odometry;
+  }
 
-  @Override
-  public void disabledInit() {
-    if (intake != null) {
-      intake.disabledInit();
-    }
-    if (shooter != null) {
-      shooter.disabledInit();
-    }
-    if (climber != null) {
-      climber.disabledInit();
+  double[] getSwerveAngles() {
+    double[] angles = new double[swerve.getModuleCount()];
+    for (int i=0; i<angles.length; i++) {
+      angles[i] = swerve.getModule(i).getSteerPosition();
     }
+    return angles;
   }
 
 /* ==============================================================================
@@ -547,95 +554,41 @@ public class Robot extends TimedRobot {
 
   @Override
   public void testInit() {
-    SmartDashboard.putNumber("P Gain", kP);
-    SmartDashboard.putNumber("I Gain", kI);
-    SmartDashboard.putNumber("D Gain", kD);
-    SmartDashboard.putNumber("I Zone", kIz);
-    SmartDashboard.putNumber("Feed Forward", kFF);
-    SmartDashboard.putNumber("Max Output", kMaxOutput);
-    SmartDashboard.putNumber("Min Output", kMinOutput);
-    SmartDashboard.putNumber("Set Rotations", 0);
-
+    MotorConfigurator.awaitCompletion();
 
+    // test mode drives the motors directly, so nothing else can be running
+    CommandScheduler.getInstance().cancelAll();
+    steeringTuner.publish();
   }
 
   @Override
   public void testPeriodic() {
-    SmartDashboard.putString("MotorTesting: ", "None");
-    if(drive_control.getBButton() == true) {
-      frontLeftAngleEncoder.setPosition(0);
-      System.out.print("Encoder 1 Reset");
-      frontRightAngleEncoder.setPosition(0);
-      System.out.print("Encoder 2 Reset");
-      backRightAngleEncoder.setPosition(0);
-      System.out.print("Encoder 3 Reset");
-      backLeftAngleEncoder.setPosition(0);
-      System.out.print("Encoder 4 Reset");
-    }
-    double p = SmartDashboard.getNumber("P Gain", 0);
-    double i = SmartDashboard.getNumber("I Gain", 0);
-    double d = SmartDashboard.getNumber("D Gain", 0);
-    double iz = SmartDashboard.getNumber("I Zone", 0);
-    double ff = SmartDashboard.getNumber("Feed Forward", 0);
-    double max = SmartDashboard.getNumber("Max Output", 0);
-    double min = SmartDashboard.getNumber("Min Output", 0);
-    double rotations = SmartDashboard.getNumber("Set Rotations", 0);
-    if((p != kP)) { frontLeftPidController.setP(p); kP = p; }
-    if((i != kI)) { frontLeftPidController.setI(i); kI = i; }
-    if((d != kD)) { frontLeftPidController.setD(d); kD = d; }
-    if((iz != kIz)) { frontLeftPidController.setIZone(iz); kIz = iz; }
-    if((ff != kFF)) { frontLeftPidController.setFF(ff); kFF = ff; }
-    if((max != kMaxOutput) || (min != kMinOutput)) { 
-      frontLeftPidController.setOutputRange(min, max); 
-      kMinOutput = min; kMaxOutput = max; 
-    }
-    if((p != kP)) { frontRightPidController.setP(p); kP = p; }
-    if((i != kI)) { frontRightPidController.setI(i); kI = i; }
-    if((d != kD)) { frontRightPidController.setD(d); kD = d; }
-    if((iz != kIz)) { frontRightPidController.setIZone(iz); kIz = iz; }
-    if((ff != kFF)) { frontRightPidController.setFF(ff); kFF = ff; }
-    if((max != kMaxOutput) || (min != kMinOutput)) { 
-      frontRightPidController.setOutputRange(min, max); 
-      kMinOutput = min; kMaxOutput = max; 
-    }
-    if((p != kP)) { backRightPidController.setP(p); kP = p; }
-    if((i != kI)) { backRightPidController.setI(i); kI = i; }
-    if((d != kD)) { backRightPidController.setD(d); kD = d; }
-    if((iz != kIz)) { backRightPidController.setIZone(iz); kIz = iz; }
-    if((ff != kFF)) { backRightPidController.setFF(ff); kFF = ff; }
-    if((max != kMaxOutput) || (min != kMinOutput)) { 
-      backRightPidController.setOutputRange(min, max); 
-      kMinOutput = min; kMaxOutput = max; 
-    }
-    if((p != kP)) { backLeftPidController.setP(p); kP = p; }
-    if((i != kI)) { backLeftPidController.setI(i); kI = i; }
-    if((d != kD)) { backLeftPidController.setD(d); kD = d; }
-    if((iz != kIz)) { backLeftPidController.setIZone(iz); kIz = iz; }
-    if((ff != kFF)) { backLeftPidController.setFF(ff); kFF = ff; }
-    if((max != kMaxOutput) || (min != kMinOutput)) { 
-      backLeftPidController.setOutputRange(min, max); 
-      kMinOutput = min; kMaxOutput = max; 
-    }
-
-    while(drive_control.getAButton() == true) {
-      SmartDashboard.putString("MotorTesting: ", "Front Left");
-      frontLeftDriveMotor.set(drive_control.getLeftY());
-      frontLeftAngleMotor.set(drive_control.getRightY());
-    }
-    while(drive_control.getBButton() == true) {
-      SmartDashboard.putString("MotorTesting: ", "Front Right");
-      frontRightDriveMotor.set(drive_control.getLeftY());
-      frontRightAngleMotor.set(drive_control.getRightY());
-    }
-    while(drive_control.getXButton() == true) {   
-       SmartDashboard.putString("MotorTesting: ", "Back Left");
-      backLeftDriveMotor.set(drive_control.getLeftY());
-      backLeftAngleMotor.set(drive_control.getRightY());
-    }
-    while(drive_control.getYButton() == true) {
-      SmartDashboard.putString("MotorTesting: ", "Back Right");
-      backRightDriveMotor.set(drive_control.getLeftY());
-      backRightAngleMotor.set(drive_control.getRightY());
+    motorTestingEntry.set("None");
+    if(drive_control.getBButtonPressed()) {
+      for (int m=0; m<swerve.getModuleCount(); m++) {
+        swerve.getModule(m).resetSteering();
+      }
+      Logger.log("swerve: steering encoders reset");
+    }
+    steeringTuner.applyPending();
+
+    // one module at a time, for as long as its button is held (the controller
+    // is only read once per loop, so this has to be an if and not a while)
+    if(drive_control.getAButton() == true) {
+      motorTestingEntry.set("Front Left");
+      swerve.getModule(SwerveDrive.FRONT_LEFT).setRaw(drive_control.getLeftY(), drive_control.getRightY());
+    }
+    else if(drive_control.getBButton() == true) {
+      motorTestingEntry.set("Front Right");
+      swerve.getModule(SwerveDrive.FRONT_RIGHT).setRaw(drive_control.getLeftY(), drive_control.getRightY());
+    }
+    else if(drive_control.getXButton() == true) {
+      motorTestingEntry.set("Back Left");
+      swerve.getModule(SwerveDrive.BACK_LEFT).setRaw(drive_control.getLeftY(), drive_control.getRightY());
+    }
+    else if(drive_control.getYButton() == true) {
+      motorTestingEntry.set("Back Right");
+      swerve.getModule(SwerveDrive.BACK_RIGHT).setRaw(drive_control.getLeftY(), drive_control.getRightY());
     }
 
   }
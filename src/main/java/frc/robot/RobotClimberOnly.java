@@ -5,9 +5,16 @@
 package frc.robot;
 
 import edu.wpi.first.wpilibj.TimedRobot;
-import edu.wpi.first.wpilibj.XboxController;
+import edu.wpi.first.wpilibj2.command.CommandScheduler;
+import frc.robot.input.Bindings;
+import frc.robot.input.SnapshotController;
+import frc.robot.motors.MotorConfigurator;
 import frc.robot.motors.MotorFactory;
+import frc.robot.motors.SparkMaxOutput;
 import frc.robot.subsystems.ClimberSubsystem;
+import frc.robot.util.Dashboard;
+import frc.robot.util.PeriodicTasks;
+import frc.robot.util.SensorSnapshot;
 
 /**
  * Implementation of a Robot that only has the climber subsystem, so we can develop
@@ -25,7 +32,7 @@ public class RobotClimberOnly extends TimedRobot {
   public static final int FRONT_CAMERA_PORT = 0;
   public static final int BACK_CAMERA_PORT = 1;
 
-  private XboxController specialOpsController;
+  private SnapshotController specialOpsController;
   private ClimberSubsystem climber;
 
   /**
@@ -34,15 +41,26 @@ public class RobotClimberOnly extends TimedRobot {
    */
   @Override
   public void robotInit() {
-    specialOpsController = new XboxController(CONTROLLER_PORT);
-    climber = new ClimberSubsystem(specialOpsController, EXTENDER_PORT, EXTENDER_SWITCH, ROTATOR_PORT, ROTATOR_SWITCH, null);
+    specialOpsController = new SnapshotController(CONTROLLER_PORT);
+    climber = new ClimberSubsystem(new Bindings(specialOpsController, specialOpsController), EXTENDER_PORT, EXTENDER_SWITCH, ROTATOR_PORT, ROTATOR_SWITCH);
+    MotorConfigurator.awaitCompletion();
+    PeriodicTasks.start(this);
+  }
+
+  /** Reads every sensor and the controller once, before any of the periodic functions run */
+  @Override
+  protected void loopFunc() {
+    SensorSnapshot.refresh();
+    specialOpsController.update();
+    super.loopFunc();
   }
 
   /** This function is called periodically in all modes */
   @Override
   public void robotPeriodic() {
-    climber.robotPeriodic();
+    CommandScheduler.getInstance().run();
     MotorFactory.updateDashboard();
+    Dashboard.flush();
   }
 
   /** This function is called periodically during operator control. */
@@ -55,5 +73,6 @@ public class RobotClimberOnly extends TimedRobot {
   @Override
   public void disabledInit() {
     climber.disabledInit();
+    SparkMaxOutput.invalidateAll();
   }
 }
\ No newline at end of file
@@ -4,22 +4,31 @@
 
 package frc.robot;
 
-import edu.wpi.first.cameraserver.CameraServer;
+import edu.wpi.first.wpilibj.DriverStation;
 import edu.wpi.first.wpilibj.TimedRobot;
-import edu.wpi.first.wpilibj.XboxController;
-import frc.robot.motors.MotorFactory;
-import frc.robot.subsystems.ClimberSubsystem;
+import edu.wpi.first.wpilibj2.command.CommandScheduler;
+import frc.robot.input.Bindings;
+import frc.robot.input.SnapshotController;
+import frc.robot.subsystems.CameraProfile;
+import frc.robot.subsystems.CameraSubsystem;
+import frc.robot.subsystems.VisionSubsystem;
+import frc.robot.util.Dashboard;
+import frc.robot.util.PeriodicTasks;
 
 /**
- * Implementation of a Robot that only has the climber subsystem, so we can develop
+ * Implementation of a Robot that only has the cameras, so we can develop
  * and test independently.
  */
 public class RobotEyesOnly extends TimedRobot {
 
+  public static final int CONTROLLER_PORT = 0;
   public static final int FRONT_CAMERA_PORT = 0;
   public static final int BACK_CAMERA_PORT = 1;
   public static final int BALL_CAMERA_PORT = 2;
 
+  private SnapshotController controller;
+  private CameraSubsystem cameras;
+  private VisionSubsystem vision;
 
   /**
    * This function is run when the robot is first started up and should be used for any
@@ -27,17 +36,37 @@ public class RobotEyesOnly extends TimedRobot {
    */
   @Override
   public void robotInit() {
+    controller = new SnapshotController(CONTROLLER_PORT);
     if (!isSimulation()) {
-      CameraServer.startAutomaticCapture("Front", FRONT_CAMERA_PORT);
-      CameraServer.startAutomaticCapture("Back", BACK_CAMERA_PORT);  
-      CameraServer.startAutomaticCapture("Ball",BALL_CAMERA_PORT);
+      cameras = new CameraSubsystem(new Bindings(controller, controller));
+      cameras.addDriverCamera("Front", FRONT_CAMERA_PORT, CameraProfile.DRIVER);
+      cameras.addDriverCamera("Back", BACK_CAMERA_PORT, CameraProfile.GLANCE);
+      vision = new VisionSubsystem(cameras.addVisionCamera("Ball", BALL_CAMERA_PORT, CameraProfile.VISION));
+      vision.start();
     }
+    PeriodicTasks.start(this);
+  }
+
+  /** Reads the controller once, before any of the periodic functions run */
+  @Override
+  protected void loopFunc() {
+    controller.update();
+    super.loopFunc();
   }
 
   /** This function is called periodically in all modes */
   @Override
   public void robotPeriodic() {
-    
+    CommandScheduler.getInstance().run();
+    Dashboard.flush();
+  }
+
+  /** The vision looks for our alliance's balls */
+  @Override
+  public void teleopInit() {
+    if (vision != null) {
+      vision.setAlliance(DriverStation.getAlliance());
+    }
   }
 
   /** This function is called periodically during operator control. */
@@ -51,4 +80,4 @@ public class RobotEyesOnly extends TimedRobot {
   public void disabledInit() {
     
   }
-}
\ No newline at end of file
+}
@@ -6,11 +6,14 @@ package frc.robot;
 
 import edu.wpi.first.wpilibj.TimedRobot;
 import edu.wpi.first.wpilibj.XboxController;
-import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
+import frc.robot.motors.MotorConfigurator;
 import frc.robot.motors.MotorFactory;
 import frc.robot.motors.NamedMotor;
 import frc.robot.motors.PositionClosedLoopMotor;
+import frc.robot.motors.SparkMaxOutput;
+import frc.robot.util.Dashboard;
 import frc.robot.util.Logger;
+import frc.robot.util.SensorSnapshot;
 
 /**
  * Implementation of a Robot for testing positional motor
@@ -27,6 +30,8 @@ public class RobotPositionalTest extends TimedRobot {
   private boolean motorEnabled;
   private double targetPosition;
   private double totalDelta;
+  private Dashboard.BooleanEntry motorEnabledEntry;
+  private Dashboard.NumberEntry targetPositionEntry;
 
   /**
    * This function is run when the robot is first started up and should be used for any
@@ -36,14 +41,25 @@ public class RobotPositionalTest extends TimedRobot {
   public void robotInit() {
     controller = new XboxController(CONTROLLER_PORT);
     motor = new PositionClosedLoopMotor("Motor", MOTOR_PORT);
+    motorEnabledEntry = Dashboard.bool("Motor Enabled?");
+    targetPositionEntry = Dashboard.number("Target Position");
+    MotorConfigurator.awaitCompletion();
+  }
+
+  /** Reads every sensor once, before any of the periodic functions run */
+  @Override
+  protected void loopFunc() {
+    SensorSnapshot.refresh();
+    super.loopFunc();
   }
 
   /** This function is called periodically in all modes */
   @Override
   public void robotPeriodic() {
-    SmartDashboard.putBoolean("Motor Enabled?", motorEnabled);
-    SmartDashboard.putNumber("Target Position", targetPosition);
+    motorEnabledEntry.set(motorEnabled);
+    targetPositionEntry.set(targetPosition);
     MotorFactory.updateDashboard();
+    Dashboard.flush();
   }
 
   /** This function is called once when the robot is disabled. */
@@ -51,6 +67,7 @@ public class RobotPositionalTest extends TimedRobot {
   public void disabledInit() {
     motorEnabled = false;
     motor.set(0.0);
+    SparkMaxOutput.invalidateAll();
   }
 
   /** This function is called periodically during operator control. */
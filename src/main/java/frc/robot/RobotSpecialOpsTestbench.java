@@ -4,12 +4,20 @@
 
 package frc.robot;
 
-import edu.wpi.first.cameraserver.CameraServer;
 import edu.wpi.first.wpilibj.TimedRobot;
-import edu.wpi.first.wpilibj.XboxController;
+import edu.wpi.first.wpilibj2.command.CommandScheduler;
+import frc.robot.input.Bindings;
+import frc.robot.input.SnapshotController;
+import frc.robot.motors.MotorConfigurator;
 import frc.robot.motors.MotorFactory;
+import frc.robot.motors.SparkMaxOutput;
+import frc.robot.subsystems.CameraProfile;
+import frc.robot.subsystems.CameraSubsystem;
 import frc.robot.subsystems.IntakeSubsystem;
 import frc.robot.subsystems.ShooterSubsystem;
+import frc.robot.util.Dashboard;
+import frc.robot.util.PeriodicTasks;
+import frc.robot.util.SensorSnapshot;
 
 /**
  * Implementation of a Robot that only has the shooting subsystem, so we can develop
@@ -27,9 +35,10 @@ public class RobotSpecialOpsTestbench extends TimedRobot {
   public static final int FRONT_CAMERA_PORT = 0;
   public static final int BACK_CAMERA_PORT = 1;
 
-  private XboxController controller;
+  private SnapshotController controller;
   private ShooterSubsystem shooter;
   private IntakeSubsystem intake;
+  private CameraSubsystem cameras;
 
   /**
    * This function is run when the robot is first started up and should be used for any
@@ -38,21 +47,35 @@ public class RobotSpecialOpsTestbench extends TimedRobot {
   @Override
   public void robotInit() {
     System.err.println("initializing robot ...");
-    controller = new XboxController(CONTROLLER_PORT);
-    intake = new IntakeSubsystem(controller, INTAKE_PORT);
-    shooter = new ShooterSubsystem(controller, SHOOTER_LAUNCH_PORT, SHOOTER_INDEXER_PORT, SHOOTER_SWITCH_PORT);
+    controller = new SnapshotController(CONTROLLER_PORT);
+
+    // one controller does everything, so both subsystems see the same presses
+    Bindings bindings = new Bindings(controller, controller);
+    intake = new IntakeSubsystem(bindings, INTAKE_PORT);
+    shooter = new ShooterSubsystem(bindings, SHOOTER_LAUNCH_PORT, SHOOTER_INDEXER_PORT, SHOOTER_SWITCH_PORT);
     if (!isSimulation() && USE_CAMERAS) {
-      CameraServer.startAutomaticCapture("Front", FRONT_CAMERA_PORT);
-      CameraServer.startAutomaticCapture("Back", BACK_CAMERA_PORT);  
+      cameras = new CameraSubsystem(bindings);
+      cameras.addDriverCamera("Front", FRONT_CAMERA_PORT, CameraProfile.DRIVER);
+      cameras.addDriverCamera("Back", BACK_CAMERA_PORT, CameraProfile.GLANCE);
     }
+    MotorConfigurator.awaitCompletion();
+    PeriodicTasks.start(this);
+  }
+
+  /** Reads every sensor and the controller once, before any of the periodic functions run */
+  @Override
+  protected void loopFunc() {
+    SensorSnapshot.refresh();
+    controller.update();
+    super.loopFunc();
   }
 
   /** This function is called periodically in all modes */
   @Override
   public void robotPeriodic() {
-    shooter.robotPeriodic();
-    intake.robotPeriodic();
+    CommandScheduler.getInstance().run();
     MotorFactory.updateDashboard();
+    Dashboard.flush();
   }
 
   /** This function is called periodically during operator control. */
@@ -67,5 +90,6 @@ public class RobotSpecialOpsTestbench extends TimedRobot {
   public void disabledInit() {
     shooter.disabledInit();
     intake.disabledInit();
+    SparkMaxOutput.invalidateAll();
   }
 }
\ No newline at end of file
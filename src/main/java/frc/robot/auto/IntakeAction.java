@@ -0,0 +1,22 @@
+package frc.robot.auto;
+
+/**
+ * What the intake does during a segment of an autonomous {@link Timeline}
+ */
+public enum IntakeAction {
+
+    /** Stopped, in brake mode */
+    OFF,
+
+    /** Run backwards slowly, which lets the intake frame drop */
+    DROP_FRAME,
+
+    /** Run backwards a bit faster, to finish dropping the frame */
+    DROP_FRAME_FAST,
+
+    /** Spin at the normal intake speed to pick up balls */
+    INTAKE,
+
+    /** Let the wheel coast to a stop */
+    COAST
+}
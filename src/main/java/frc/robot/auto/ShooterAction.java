@@ -0,0 +1,16 @@
+package frc.robot.auto;
+
+/**
+ * What the shooter does during a segment of an autonomous {@link Timeline}
+ */
+public enum ShooterAction {
+
+    /** Launch wheel off */
+    OFF,
+
+    /** Launch wheel spinning */
+    SPIN,
+
+    /** Launch wheel spinning, and fire one ball as soon as it's ready */
+    SHOOT
+}
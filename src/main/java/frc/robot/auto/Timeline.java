@@ -0,0 +1,191 @@
+package frc.robot.auto;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import edu.wpi.first.wpilibj.Filesystem;
+import frc.robot.util.Logger;
+
+/**
+ * An autonomous routine, as a list of timed segments. Each segment starts at a
+ * time (seconds since the start of autonomous) and lasts until the next one starts,
+ * and says what the drive, intake and shooter do in the meantime.
+ *
+ * Routines live in the {@link #DIRECTORY} folder of the deploy directory, one
+ * file per routine (the file name without ".csv" is the routine's name). Each
+ * line is a segment:
+ *
+ *     start seconds, drive speed, drive angle (radians), intake action, shooter action
+ *
+ * Blank lines and lines starting with # are skipped, and the first segment has to
+ * start at 0. See {@link IntakeAction} and {@link ShooterAction} for the actions.
+ *
+ * A routine gets loaded once into arrays sorted by start time. While it runs, a
+ * cursor remembers which segment we're in, so {@link #update(double)} only ever has
+ * to look at the next segment rather than scanning from the top every loop.
+ */
+public class Timeline {
+
+    public static final String DIRECTORY = "auto";
+    public static final String EXTENSION = ".csv";
+
+    private final String name;
+    private final double[] starts;
+    private final double[] driveSpeeds;
+    private final double[] driveAngles;
+    private final IntakeAction[] intakeActions;
+    private final ShooterAction[] shooterActions;
+    private int cursor;
+    private boolean newSegment;
+
+    private Timeline(String name, double[] starts, double[] driveSpeeds, double[] driveAngles,
+            IntakeAction[] intakeActions, ShooterAction[] shooterActions) {
+        this.name = name;
+        this.starts = starts;
+        this.driveSpeeds = driveSpeeds;
+        this.driveAngles = driveAngles;
+        this.intakeActions = intakeActions;
+        this.shooterActions = shooterActions;
+        reset();
+    }
+
+    /**
+     * Loads every routine in the deploy directory's {@link #DIRECTORY} folder,
+     * sorted by name. Broken files get logged and skipped.
+     */
+    public static Map<String, Timeline> loadAll() {
+        return loadAll(new File(Filesystem.getDeployDirectory(), DIRECTORY));
+    }
+
+    public static Map<String, Timeline> loadAll(File directory) {
+        Map<String, Timeline> timelines = new TreeMap<>();
+        File[] files = directory.listFiles((dir, fileName) -> fileName.endsWith(EXTENSION));
+        if (files == null) {
+            Logger.log("auto: no routines in ", directory);
+            return timelines;
+        }
+        for (File file : files) {
+            try {
+                Timeline timeline = load(file);
+                timelines.put(timeline.getName(), timeline);
+            } catch (IOException | RuntimeException e) {
+                Logger.log("auto: unable to load ", file, " (", e, ")");
+            }
+        }
+        Logger.log("auto: loaded ", timelines.size(), " routines ", timelines.keySet());
+        return timelines;
+    }
+
+    public static Timeline load(File file) throws IOException {
+        String fileName = file.getName();
+        String name = fileName.substring(0, fileName.length() - EXTENSION.length());
+
+        List<String[]> rows = new ArrayList<>();
+        try (BufferedReader in = new BufferedReader(new FileReader(file))) {
+            String line;
+            while ((line = in.readLine()) != null) {
+                line = line.trim();
+                if (line.isEmpty() || line.startsWith("#")) {
+                    continue;
+                }
+                String[] parts = line.split(",");
+                if (parts.length != 5) {
+                    throw new IllegalArgumentException("expected 5 values, got \"" + line + "\"");
+                }
+                for (int i=0; i<parts.length; i++) {
+                    parts[i] = parts[i].trim();
+                }
+                rows.add(parts);
+            }
+        }
+        rows.sort((l, r) -> Double.compare(Double.parseDouble(l[0]), Double.parseDouble(r[0])));
+        if (rows.isEmpty() || Double.parseDouble(rows.get(0)[0]) != 0.0) {
+            throw new IllegalArgumentException("the first segment has to start at 0");
+        }
+
+        int size = rows.size();
+        double[] starts = new double[size];
+        double[] driveSpeeds = new double[size];
+        double[] driveAngles = new double[size];
+        IntakeAction[] intakeActions = new IntakeAction[size];
+        ShooterAction[] shooterActions = new ShooterAction[size];
+        for (int i=0; i<size; i++) {
+            String[] row = rows.get(i);
+            starts[i] = Double.parseDouble(row[0]);
+            driveSpeeds[i] = Double.parseDouble(row[1]);
+            driveAngles[i] = Double.parseDouble(row[2]);
+            intakeActions[i] = IntakeAction.valueOf(row[3].toUpperCase());
+            shooterActions[i] = ShooterAction.valueOf(row[4].toUpperCase());
+        }
+        return new Timeline(name, starts, driveSpeeds, driveAngles, intakeActions, shooterActions);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /** @return how many segments there are */
+    public int size() {
+        return starts.length;
+    }
+
+    /**
+     * Goes back to the start, before the first segment
+     */
+    public void reset() {
+        cursor = -1;
+        newSegment = false;
+    }
+
+    /**
+     * Moves the cursor up to the segment we should be in at this time. Time only
+     * goes forward, so this is normally one comparison.
+     *
+     * @param seconds time since autonomous started
+     */
+    public void update(double seconds) {
+        int previous = cursor;
+        while (cursor + 1 < starts.length && starts[cursor + 1] <= seconds) {
+            cursor++;
+        }
+        if (cursor < 0) {
+            cursor = 0;
+        }
+        newSegment = cursor != previous;
+        if (newSegment) {
+            Logger.log("auto: ", name, " segment ", cursor, " at ", seconds, "s");
+        }
+    }
+
+    /** @return the index of the current segment */
+    public int getSegment() {
+        return cursor;
+    }
+
+    /** @return true if the last {@link #update(double)} moved into a new segment */
+    public boolean isNewSegment() {
+        return newSegment;
+    }
+
+    public double getDriveSpeed() {
+        return driveSpeeds[cursor];
+    }
+
+    public double getDriveAngle() {
+        return driveAngles[cursor];
+    }
+
+    public IntakeAction getIntakeAction() {
+        return intakeActions[cursor];
+    }
+
+    public ShooterAction getShooterAction() {
+        return shooterActions[cursor];
+    }
+}
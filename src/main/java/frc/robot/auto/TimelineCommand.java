@@ -0,0 +1,81 @@
+package frc.robot.auto;
+
+import edu.wpi.first.wpilibj.Timer;
+import edu.wpi.first.wpilibj2.command.CommandBase;
+import frc.robot.subsystems.DriveSubsystem;
+import frc.robot.subsystems.IntakeSubsystem;
+import frc.robot.subsystems.ShooterSubsystem;
+import frc.robot.util.LoopTimer;
+
+/**
+ * Runs a {@link Timeline} on the drive, intake and shooter. It needs all three,
+ * so nothing else gets to use them while it's running; once the last segment
+ * starts, it just keeps doing that until autonomous is over.
+ *
+ * Each SHOOT segment asks for one ball, and we keep count of the balls that
+ * haven't been fired yet, so a shot that has to wait for the launch wheel
+ * still happens (and a routine can ask for a second one before the first
+ * has gone).
+ */
+public class TimelineCommand extends CommandBase {
+
+    private final Timeline timeline;
+    private final DriveSubsystem drive;
+    private final IntakeSubsystem intake;
+    private final ShooterSubsystem shooter;
+    private final LoopTimer intakeTimer;
+    private final LoopTimer shooterTimer;
+    private double startTime;
+    private int shotsPending;
+
+    public TimelineCommand(Timeline timeline, DriveSubsystem drive, IntakeSubsystem intake, ShooterSubsystem shooter) {
+        this.timeline = timeline;
+        this.drive = drive;
+        this.intake = intake;
+        this.shooter = shooter;
+        this.intakeTimer = LoopTimer.named("Intake Auto");
+        this.shooterTimer = LoopTimer.named("Shooter Auto");
+        addRequirements(drive, intake, shooter);
+    }
+
+    public Timeline getTimeline() {
+        return timeline;
+    }
+
+    /** @return how many balls the routine has asked for that haven't been fired yet */
+    public int getShotsPending() {
+        return shotsPending;
+    }
+
+    @Override
+    public void initialize() {
+        startTime = Timer.getFPGATimestamp();
+        shotsPending = 0;
+        timeline.reset();
+        intake.autonomousInit();
+        shooter.autonomousInit();
+    }
+
+    @Override
+    public void execute() {
+        timeline.update(Timer.getFPGATimestamp() - startTime);
+
+        drive.forwardBy(timeline.getDriveSpeed(), timeline.getDriveAngle());
+
+        intakeTimer.start();
+        intake.autonomousPeriodic(timeline.getIntakeAction());
+        intakeTimer.stop();
+
+        ShooterAction action = timeline.getShooterAction();
+        if (action == ShooterAction.OFF) {
+            shotsPending = 0;
+        } else if (action == ShooterAction.SHOOT && timeline.isNewSegment()) {
+            shotsPending++;
+        }
+        shooterTimer.start();
+        if (shooter.autonomousPeriodic(action, shotsPending > 0)) {
+            shotsPending--;
+        }
+        shooterTimer.stop();
+    }
+}
@@ -0,0 +1,63 @@
+package frc.robot.input;
+
+import edu.wpi.first.wpilibj.XboxController.Axis;
+import edu.wpi.first.wpilibj.XboxController.Button;
+
+/**
+ * Everything the drivers can do with their controllers, and which button (or
+ * stick/trigger) does it unless {@link Bindings} says otherwise.
+ *
+ * Subsystems ask {@link Bindings} about actions rather than asking a controller
+ * about buttons, so this is the one place to look to see what a button does (and
+ * whether anything else already uses it).
+ */
+public enum Action {
+
+    // driver: driving
+    DRIVE_X(Bindings.DRIVER, Axis.kLeftX),
+    DRIVE_Y(Bindings.DRIVER, Axis.kLeftY),
+    DRIVE_TURN(Bindings.DRIVER, Axis.kRightX),
+    DRIVE_TURBO(Bindings.DRIVER, Axis.kRightTrigger),
+    DRIVE_REVERSE(Bindings.DRIVER, Button.kStart),
+    DRIVE_AIM_BOT(Bindings.DRIVER, Button.kRightBumper),
+    DRIVE_MAC_DRIVE(Bindings.DRIVER, Button.kLeftBumper),
+
+    // driver: intake
+    INTAKE_TOGGLE(Bindings.DRIVER, Button.kBack),
+    INTAKE_RESET_SPEED(Bindings.DRIVER, Button.kA),
+    INTAKE_SLOWER(Bindings.DRIVER, Button.kX),
+    INTAKE_FASTER(Bindings.DRIVER, Button.kY),
+    INTAKE_REVERSE(Bindings.DRIVER, Axis.kLeftTrigger),
+
+    // special ops: shooter
+    LAUNCH_TOGGLE(Bindings.SPECIAL_OPS, Button.kStart),
+    LAUNCH_AUTO_RANGE(Bindings.SPECIAL_OPS, Button.kRightBumper),
+    LAUNCH_RESET_SPEED(Bindings.SPECIAL_OPS, Button.kA),
+    LAUNCH_SLOWER(Bindings.SPECIAL_OPS, Button.kX),
+    LAUNCH_FASTER(Bindings.SPECIAL_OPS, Button.kY),
+    SHOOT(Bindings.SPECIAL_OPS, Button.kB),
+    INDEXER_REVERSE(Bindings.SPECIAL_OPS, Button.kLeftBumper),
+
+    // special ops: climber
+    CLIMBER_EXTEND(Bindings.SPECIAL_OPS, Axis.kLeftY),
+    CLIMBER_ROTATE(Bindings.SPECIAL_OPS, Axis.kRightX),
+
+    // special ops: cameras (this used to share the left bumper with the indexer)
+    CAMERA_SWITCH(Bindings.SPECIAL_OPS, Button.kBack);
+
+    final int controller;
+    final Button button;
+    final Axis axis;
+
+    Action(int controller, Button button) {
+        this.controller = controller;
+        this.button = button;
+        this.axis = null;
+    }
+
+    Action(int controller, Axis axis) {
+        this.controller = controller;
+        this.button = null;
+        this.axis = axis;
+    }
+}
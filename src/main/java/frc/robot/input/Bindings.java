@@ -0,0 +1,126 @@
+package frc.robot.input;
+
+import edu.wpi.first.wpilibj.XboxController.Axis;
+import edu.wpi.first.wpilibj.XboxController.Button;
+import frc.robot.util.Logger;
+
+/**
+ * The table of which button (or axis) on which controller does each {@link Action}.
+ *
+ * Everything is answered from the controllers' snapshots, so asking is just a bit
+ * test, and "pressed" means "pressed since the last loop" no matter how many
+ * subsystems ask (plain XboxController hands out each press once, so whoever
+ * asked first used to get it and everyone else missed it). The table is a few
+ * arrays indexed by the action's ordinal, so looking one up allocates nothing.
+ *
+ * An action bound to an axis counts as down when the axis is past
+ * {@link #AXIS_THRESHOLD} (that's how the triggers work), but there's no
+ * pressed/released for it. An action bound to a button reads as 0 or 1 as an axis.
+ *
+ * Binding two actions to the same thing is allowed (the testbenches put everyone
+ * on one controller) but gets logged.
+ */
+public class Bindings {
+
+    /** Controller indexes, in the order they're passed in */
+    public static final int DRIVER = 0;
+    public static final int SPECIAL_OPS = 1;
+
+    /** How far an axis has to go before an action bound to it is "down" */
+    public static final double AXIS_THRESHOLD = 0.5;
+
+    private static final Action[] ACTIONS = Action.values();
+
+    private final SnapshotController[] controllers;
+    private final int[] controllerIndexes;
+    private final int[] masks;
+    private final int[] axes;
+
+    /**
+     * @param controllers the driver's controller, then special ops (the same
+     *   controller can be passed twice)
+     */
+    public Bindings(SnapshotController... controllers) {
+        this.controllers = controllers;
+        this.controllerIndexes = new int[ACTIONS.length];
+        this.masks = new int[ACTIONS.length];
+        this.axes = new int[ACTIONS.length];
+        for (Action action : ACTIONS) {
+            if (action.button != null) {
+                set(action, action.controller, action.button);
+            } else {
+                set(action, action.controller, action.axis);
+            }
+        }
+        logConflicts();
+    }
+
+    /** Moves an action to a button */
+    public void bind(Action action, int controller, Button button) {
+        set(action, controller, button);
+        Logger.log("bindings: ", action, " is now controller ", controller, " ", button);
+        logConflicts();
+    }
+
+    /** Moves an action to an axis */
+    public void bind(Action action, int controller, Axis axis) {
+        set(action, controller, axis);
+        Logger.log("bindings: ", action, " is now controller ", controller, " ", axis);
+        logConflicts();
+    }
+
+    private void set(Action action, int controller, Button button) {
+        int i = action.ordinal();
+        controllerIndexes[i] = Math.min(controller, controllers.length - 1);
+        masks[i] = 1 << (button.value - 1);
+        axes[i] = -1;
+    }
+
+    private void set(Action action, int controller, Axis axis) {
+        int i = action.ordinal();
+        controllerIndexes[i] = Math.min(controller, controllers.length - 1);
+        masks[i] = 0;
+        axes[i] = axis.value;
+    }
+
+    private void logConflicts() {
+        for (int a=0; a<ACTIONS.length; a++) {
+            for (int b=a+1; b<ACTIONS.length; b++) {
+                if (controllers[controllerIndexes[a]] == controllers[controllerIndexes[b]]
+                        && masks[a] == masks[b] && axes[a] == axes[b]) {
+                    Logger.log("bindings: ", ACTIONS[a], " and ", ACTIONS[b], " are on the same input");
+                }
+            }
+        }
+    }
+
+    /** @return true if the action's button is down (or its axis is pushed far enough) */
+    public boolean isDown(Action action) {
+        int i = action.ordinal();
+        if (axes[i] >= 0) {
+            return controllers[controllerIndexes[i]].getAxis(axes[i]) > AXIS_THRESHOLD;
+        }
+        return (controllers[controllerIndexes[i]].getButtons() & masks[i]) != 0;
+    }
+
+    /** @return true if the action's button went down since the last loop */
+    public boolean wasPressed(Action action) {
+        int i = action.ordinal();
+        return (controllers[controllerIndexes[i]].getPressed() & masks[i]) != 0;
+    }
+
+    /** @return true if the action's button came up since the last loop */
+    public boolean wasReleased(Action action) {
+        int i = action.ordinal();
+        return (controllers[controllerIndexes[i]].getReleased() & masks[i]) != 0;
+    }
+
+    /** @return the action's axis (-1 to 1, or 0 to 1 for a trigger) */
+    public double getAxis(Action action) {
+        int i = action.ordinal();
+        if (axes[i] < 0) {
+            return (controllers[controllerIndexes[i]].getButtons() & masks[i]) != 0 ? 1.0 : 0.0;
+        }
+        return controllers[controllerIndexes[i]].getAxis(axes[i]);
+    }
+}
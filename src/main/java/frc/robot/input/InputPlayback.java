@@ -0,0 +1,192 @@
+package frc.robot.input;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+
+import frc.robot.util.Logger;
+
+/**
+ * Plays an {@link InputRecorder} recording back through the same controllers, so
+ * the robot code does exactly what it did when the drivers were driving.
+ *
+ * The whole file is read when it's loaded; after that, playing it back just walks
+ * a cursor through the bytes and writes into the controllers' snapshots, so nothing
+ * gets allocated while the robot is running. Frames are played by their timestamps:
+ * every loop, all the frames up to the current time get applied (if there's more
+ * than one, their button presses all still count).
+ *
+ * A recording that got cut short (e.g. the power went out while it was being saved)
+ * still plays: loading it checks every frame, and a partial one at the end gets
+ * dropped.
+ */
+public class InputPlayback {
+
+    private final String name;
+    private final byte[] data;
+    private final int controllerCount;
+    private final int axisCount;
+    private final int end;
+    private SnapshotController[] controllers;
+    private int cursor;
+    private long startMicros;
+    private long frameMicros;
+    private boolean running;
+
+    private InputPlayback(String name, byte[] data) throws IOException {
+        if (data.length < InputRecorder.HEADER_SIZE) {
+            throw new IOException(name+" is not an input recording");
+        }
+        int magic = ((data[0] & 0xff) << 24) | ((data[1] & 0xff) << 16) | ((data[2] & 0xff) << 8) | (data[3] & 0xff);
+        if (magic != InputRecorder.MAGIC) {
+            throw new IOException(name+" is not an input recording");
+        }
+        if (data[4] != InputRecorder.VERSION) {
+            throw new IOException(name+" is version "+data[4]+", expected "+InputRecorder.VERSION);
+        }
+        if (data[5] < 0 || data[6] < 0) {
+            throw new IOException(name+" has a broken header");
+        }
+        this.name = name;
+        this.data = data;
+        this.controllerCount = data[5];
+        this.axisCount = data[6];
+
+        // make sure every frame is all there, so update() never reads off the end
+        int frameBytes = controllerCount * (2 + axisCount);
+        int position = InputRecorder.HEADER_SIZE;
+        int frames = 0;
+        while (position < data.length) {
+            int next = skipFrame(data, position, frameBytes);
+            if (next < 0) {
+                Logger.log("input playback: ", name, " is cut short, dropping the last ",
+                    data.length - position, " bytes (playing ", frames, " frames)");
+                break;
+            }
+            position = next;
+            frames++;
+        }
+        this.end = position;
+    }
+
+    /**
+     * @return where the frame starting at position ends, or -1 if the data
+     *  runs out first (or the time doesn't make sense)
+     */
+    private static int skipFrame(byte[] data, int position, int frameBytes) {
+        int shift = 0;
+        byte b;
+        do {
+            if (position >= data.length || shift > 63) {
+                return -1;
+            }
+            b = data[position++];
+            shift += 7;
+        } while ((b & 0x80) != 0);
+        if (data.length - position < frameBytes) {
+            return -1;
+        }
+        return position + frameBytes;
+    }
+
+    public static InputPlayback load(File file) throws IOException {
+        return new InputPlayback(file.getName(), Files.readAllBytes(file.toPath()));
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Takes over the controllers (in the same order they were recorded in) and
+     * starts playing from the beginning
+     *
+     * @param nowMicros the current FPGA time, in microseconds
+     */
+    public void start(long nowMicros, SnapshotController... newControllers) {
+        if (newControllers.length != controllerCount) {
+            Logger.log("input playback: ", name, " has ", controllerCount, " controllers, not ", newControllers.length);
+        }
+        controllers = newControllers;
+        for (int c=0; c<controllers.length; c++) {
+            controllers[c].setExternal(true);
+            controllers[c].clear();
+        }
+        cursor = InputRecorder.HEADER_SIZE;
+        startMicros = nowMicros;
+        frameMicros = 0L;
+        running = true;
+        Logger.log("input playback: playing ", name);
+    }
+
+    /**
+     * Gives the controllers back to the driver station
+     */
+    public void stop() {
+        if (controllers != null) {
+            for (int c=0; c<controllers.length; c++) {
+                controllers[c].setExternal(false);
+            }
+        }
+        running = false;
+    }
+
+    /** @return true until we've run out of frames */
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * Applies every frame up to the current time. Call this once at the start
+     * of every loop, instead of updating the controllers.
+     *
+     * @param nowMicros the current FPGA time, in microseconds
+     */
+    public void update(long nowMicros) {
+        if (!running) {
+            return;
+        }
+        for (int c=0; c<controllers.length; c++) {
+            controllers[c].clearEdges();
+        }
+
+        long elapsed = nowMicros - startMicros;
+        while (cursor < end) {
+            // peek at the next frame's time without moving the cursor
+            long delta = 0L;
+            int position = cursor;
+            int shift = 0;
+            byte b;
+            do {
+                b = data[position++];
+                delta |= (long) (b & 0x7f) << shift;
+                shift += 7;
+            } while ((b & 0x80) != 0);
+            if (frameMicros + delta > elapsed) {
+                return;
+            }
+            frameMicros += delta;
+            cursor = position;
+
+            for (int c=0; c<controllerCount; c++) {
+                int buttons = ((data[cursor] & 0xff) << 8) | (data[cursor + 1] & 0xff);
+                cursor += 2;
+                if (c < controllers.length) {
+                    SnapshotController controller = controllers[c];
+                    for (int a=0; a<axisCount && a<SnapshotController.AXES; a++) {
+                        controller.setAxis(a, data[cursor + a] / InputRecorder.AXIS_SCALE);
+                    }
+                    controller.accumulate(buttons);
+                }
+                cursor += axisCount;
+            }
+        }
+
+        // out of frames: let go of everything
+        Logger.log("input playback: finished ", name, " after ", frameMicros / 1e6, "s");
+        for (int c=0; c<controllers.length; c++) {
+            controllers[c].clear();
+        }
+        running = false;
+    }
+}
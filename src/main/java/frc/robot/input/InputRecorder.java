@@ -0,0 +1,162 @@
+package frc.robot.input;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+import edu.wpi.first.wpilibj.Filesystem;
+import edu.wpi.first.wpilibj.RobotBase;
+import frc.robot.util.Logger;
+
+/**
+ * Records what the drivers do with their controllers, so a good practice run can
+ * be played back later as an autonomous routine (see {@link InputPlayback}).
+ *
+ * Each loop's frame goes into a byte array that's allocated once, up front, and
+ * the whole thing is written to a file when recording stops (the robot does that
+ * when it's disabled). Frames are small:
+ *  - time since the previous frame, in microseconds, as a varint (usually 3 bytes)
+ *  - for each controller: the buttons (2 bytes), then each axis as a signed byte
+ *    (-127 to 127)
+ *
+ * The file starts with {@link #MAGIC}, a version byte, the number of controllers
+ * and the number of axes per controller. The previous few recordings are kept
+ * around (as inputs-1.rec, inputs-2.rec, ...).
+ */
+public class InputRecorder {
+
+    public static final String FILE_NAME = "inputs.rec";
+    public static final String ROBOT_DIRECTORY = "/home/lvuser";
+
+    /** Bytes of frames we can hold - a bit over 4 minutes of two controllers at 50Hz */
+    public static final int DEFAULT_CAPACITY = 256 * 1024;
+
+    /** Number of old recordings to keep around */
+    public static final int KEEP_PREVIOUS = 3;
+
+    static final int MAGIC = 0x494e5054; // "INPT"
+    static final int VERSION = 1;
+    static final int HEADER_SIZE = 7;
+    static final double AXIS_SCALE = 127.0;
+
+    private final SnapshotController[] controllers;
+    private final byte[] frames;
+    private int length;
+    private long lastMicros;
+    private boolean recording;
+
+    public InputRecorder(SnapshotController... controllers) {
+        this(DEFAULT_CAPACITY, controllers);
+    }
+
+    public InputRecorder(int capacity, SnapshotController... controllers) {
+        this.controllers = controllers;
+        this.frames = new byte[capacity];
+    }
+
+    /** @return the file recordings get saved to (on the robot, or in the project directory in simulation) */
+    public static File getDefaultFile() {
+        return new File(RobotBase.isReal() ? new File(ROBOT_DIRECTORY) : Filesystem.getOperatingDirectory(), FILE_NAME);
+    }
+
+    /**
+     * Throws away anything recorded so far and starts again
+     *
+     * @param nowMicros the current FPGA time, in microseconds
+     */
+    public void start(long nowMicros) {
+        length = 0;
+        lastMicros = nowMicros;
+        recording = true;
+    }
+
+    public boolean isRecording() {
+        return recording;
+    }
+
+    /** @return how many bytes of frames have been recorded */
+    public int getLength() {
+        return length;
+    }
+
+    /**
+     * Adds a frame with the controllers' current snapshot. Call this once per
+     * loop, after the controllers have been updated.
+     *
+     * @param nowMicros the current FPGA time, in microseconds
+     */
+    public void sample(long nowMicros) {
+        if (!recording) {
+            return;
+        }
+        int frameSize = 5 + controllers.length * (2 + SnapshotController.AXES);
+        if (length + frameSize > frames.length) {
+            Logger.log("input recorder: out of room after ", length, " bytes, stopping");
+            recording = false;
+            return;
+        }
+
+        // varint: 7 bits at a time, low bits first, high bit set if there's more
+        long delta = Math.max(0L, nowMicros - lastMicros);
+        lastMicros = nowMicros;
+        while (delta >= 0x80) {
+            frames[length++] = (byte) ((delta & 0x7f) | 0x80);
+            delta >>>= 7;
+        }
+        frames[length++] = (byte) delta;
+
+        for (int c=0; c<controllers.length; c++) {
+            SnapshotController controller = controllers[c];
+            int buttons = controller.getButtons();
+            frames[length++] = (byte) (buttons >>> 8);
+            frames[length++] = (byte) buttons;
+            for (int a=0; a<SnapshotController.AXES; a++) {
+                frames[length++] = (byte) Math.round(Math.max(-1.0, Math.min(1.0, controller.getAxis(a))) * AXIS_SCALE);
+            }
+        }
+    }
+
+    /**
+     * Stops recording and writes what we've got to the default file. This does
+     * file I/O, so only do it while the robot is disabled.
+     */
+    public void stopAndSave() {
+        stopAndSave(getDefaultFile());
+    }
+
+    public void stopAndSave(File file) {
+        if (!recording) {
+            return;
+        }
+        recording = false;
+        if (length == 0) {
+            return;
+        }
+        rotatePreviousFiles(file);
+        try (OutputStream out = new FileOutputStream(file)) {
+            byte[] header = {
+                (byte) (MAGIC >>> 24), (byte) (MAGIC >>> 16), (byte) (MAGIC >>> 8), (byte) MAGIC,
+                (byte) VERSION, (byte) controllers.length, (byte) SnapshotController.AXES
+            };
+            out.write(header);
+            out.write(frames, 0, length);
+            Logger.log("input recorder: saved ", length, " bytes to ", file);
+        } catch (IOException e) {
+            Logger.log("input recorder: unable to save ", file, " (", e, ")");
+        }
+    }
+
+    private static void rotatePreviousFiles(File file) {
+        String base = file.getName().replace(".rec", "");
+        File oldest = new File(file.getParentFile(), base+"-"+KEEP_PREVIOUS+".rec");
+        oldest.delete();
+        for (int i=KEEP_PREVIOUS-1; i>=1; i--) {
+            File from = new File(file.getParentFile(), base+"-"+i+".rec");
+            from.renameTo(new File(file.getParentFile(), base+"-"+(i+1)+".rec"));
+        }
+        if (file.exists()) {
+            file.renameTo(new File(file.getParentFile(), base+"-1.rec"));
+        }
+    }
+}
@@ -0,0 +1,134 @@
+package frc.robot.input;
+
+import edu.wpi.first.wpilibj.DriverStation;
+import edu.wpi.first.wpilibj.XboxController;
+
+/**
+ * An XboxController that reads the driver station once per loop (in {@link #update()})
+ * and answers every getter from that snapshot.
+ *
+ * Because everything XboxController does goes through getRawButton(),
+ * getRawButtonPressed(), getRawButtonReleased() and getRawAxis(), code that takes an
+ * XboxController works with this unchanged. The buttons are kept as a bitmask (bit 0
+ * is button 1) and "pressed"/"released" mean "since the last loop", the same for
+ * everyone who asks.
+ *
+ * The snapshot can also be filled in from somewhere other than the driver station,
+ * which is how {@link InputPlayback} replays a recorded match.
+ */
+public class SnapshotController extends XboxController {
+
+    /** Number of axes we keep (an Xbox controller has 6) */
+    public static final int AXES = 6;
+
+    private final double[] axes;
+    private int buttons;
+    private int pressed;
+    private int released;
+    private boolean external;
+
+    public SnapshotController(int port) {
+        super(port);
+        this.axes = new double[AXES];
+    }
+
+    /**
+     * Reads the driver station, unless the inputs are coming from somewhere
+     * else right now. Call this once at the start of every loop.
+     */
+    public void update() {
+        if (external) {
+            return;
+        }
+        int port = getPort();
+        clearEdges();
+        for (int i=0; i<AXES; i++) {
+            axes[i] = DriverStation.getStickAxis(port, i);
+        }
+        accumulate(DriverStation.getStickButtons(port));
+    }
+
+    /**
+     * Stops (or goes back to) reading the driver station; while it's stopped,
+     * whoever set this is responsible for filling in the snapshot
+     */
+    public void setExternal(boolean newExternal) {
+        external = newExternal;
+        if (!external) {
+            clear();
+        }
+    }
+
+    public boolean isExternal() {
+        return external;
+    }
+
+    /** @return every button that's down, as a bitmask (bit 0 is button 1) */
+    public int getButtons() {
+        return buttons;
+    }
+
+    /** @return every button that went down since the last loop */
+    public int getPressed() {
+        return pressed;
+    }
+
+    /** @return every button that came up since the last loop */
+    public int getReleased() {
+        return released;
+    }
+
+    public double getAxis(int axis) {
+        return axes[axis];
+    }
+
+    @Override
+    public boolean getRawButton(int button) {
+        return (buttons & (1 << (button - 1))) != 0;
+    }
+
+    @Override
+    public boolean getRawButtonPressed(int button) {
+        return (pressed & (1 << (button - 1))) != 0;
+    }
+
+    @Override
+    public boolean getRawButtonReleased(int button) {
+        return (released & (1 << (button - 1))) != 0;
+    }
+
+    @Override
+    public double getRawAxis(int axis) {
+        return axis >= 0 && axis < AXES ? axes[axis] : 0.0;
+    }
+
+    /**
+     * Lets go of everything (no buttons, sticks centered)
+     */
+    void clear() {
+        clearEdges();
+        for (int i=0; i<AXES; i++) {
+            axes[i] = 0.0;
+        }
+        accumulate(0);
+    }
+
+    void clearEdges() {
+        pressed = 0;
+        released = 0;
+    }
+
+    /**
+     * Moves to a new set of buttons, adding to the edges (so if a few frames get
+     * applied in one loop, a quick press in the middle still shows up)
+     */
+    void accumulate(int newButtons) {
+        pressed |= newButtons & ~buttons;
+        released |= buttons & ~newButtons;
+        buttons = newButtons;
+    }
+
+    void setAxis(int axis, double value) {
+        axes[axis] = value;
+    }
+}
@@ -19,9 +19,9 @@ public abstract class AbstractClosedLoopMotor extends NamedMotor {
     private PIDConstant constants;
 
     public AbstractClosedLoopMotor(String name, int port, PIDConstant constants) {
-        super(name, port);
+        super(name, port, DEFAULT_CONFIG.withPID(constants));
         this.controller = getMotor().getPIDController();
-        setConstants(constants);
+        this.constants = constants;
     }
 
     public SparkMaxPIDController getController() {
@@ -32,17 +32,12 @@ public abstract class AbstractClosedLoopMotor extends NamedMotor {
         return constants;
     }
 
-    private void setConstants(PIDConstant constants) {
-        this.constants = constants;
-        constants.configPID(controller);
-    }
-
     /**
      * Lets the motor coast by putting it in "coast" mode and then applying a
      * 0 duty cycle (basically saying "turn it off")
      */
     public void coast() {
-        getMotor().setIdleMode(IdleMode.kCoast);
-        getController().setReference(0.0, ControlType.kDutyCycle);
+        getOutput().setIdleMode(IdleMode.kCoast);
+        getOutput().setReference(0.0, ControlType.kDutyCycle);
     }
 }
@@ -0,0 +1,87 @@
+package frc.robot.motors;
+
+import com.revrobotics.CANSparkMax;
+import com.revrobotics.CANSparkMaxLowLevel.PeriodicFrame;
+
+/**
+ * How often a Spark Max sends each of its periodic status frames, depending on what
+ * the motor is used for. Out of the box every Spark Max sends all of them as if we
+ * cared, which is most of the CAN bus traffic on a robot with this many controllers.
+ *
+ * The frames (periods in milliseconds):
+ *  - status 0: applied output and faults (only matters for followers, and we have none)
+ *  - status 1: velocity, temperature, voltage and current
+ *  - status 2: position
+ *  - status 3: analog sensor (we don't have any)
+ *
+ * A value we read won't be any fresher than its frame period, so the frames we
+ * actually use get sent more often than the default and the rest get slowed way down.
+ */
+public enum FrameProfile {
+
+    /** What a Spark Max does if nobody configures it */
+    DEFAULT(10, 20, 20, 50),
+
+    /** Swerve drive motors: odometry wants position (and velocity) as fresh as it can get */
+    DRIVE(50, 20, 10, 500),
+
+    /** Swerve steering motors: position for odometry and the dashboard, never velocity */
+    STEER(50, 200, 10, 500),
+
+    /** Launch wheel: velocity decides when we're ready to shoot */
+    FLYWHEEL(50, 10, 200, 500),
+
+    /**
+     * Intake and indexer wheels. Both close their loops on the Spark Max (the roboRIO
+     * only sends the indexer its profile setpoints), so no frame feeds a control loop.
+     * Position stays at 20ms because the main loop checks it every 20ms to see if the
+     * indexer's done moving, and the next ball waits on that. Velocity is only for
+     * the dashboard.
+     */
+    INDEXER(50, 50, 20, 500),
+
+    /** Climber motors: position (for the limits) matters, but nothing's fast */
+    CLIMBER(50, 100, 20, 500),
+
+    /** Anything we don't read at all */
+    IDLE(100, 500, 500, 500);
+
+    /** Roughly how many bits an 8-byte extended CAN frame takes on the wire, with bit stuffing */
+    public static final int BITS_PER_FRAME = 131;
+
+    /** The roboRIO's CAN bus runs at 1Mbit/s */
+    public static final double BUS_BITS_PER_SECOND = 1e6;
+
+    private final int status0;
+    private final int status1;
+    private final int status2;
+    private final int status3;
+
+    private FrameProfile(int status0, int status1, int status2, int status3) {
+        this.status0 = status0;
+        this.status1 = status1;
+        this.status2 = status2;
+        this.status3 = status3;
+    }
+
+    /**
+     * Sets the status frame periods on a motor controller. Call this after
+     * restoreFactoryDefaults(), which puts them back.
+     */
+    public void apply(CANSparkMax motor) {
+        motor.setPeriodicFramePeriod(PeriodicFrame.kStatus0, status0);
+        motor.setPeriodicFramePeriod(PeriodicFrame.kStatus1, status1);
+        motor.setPeriodicFramePeriod(PeriodicFrame.kStatus2, status2);
+        motor.setPeriodicFramePeriod(PeriodicFrame.kStatus3, status3);
+    }
+
+    /** @return how many status frames per second one controller sends with this profile */
+    public double getFramesPerSecond() {
+        return 1000.0 / status0 + 1000.0 / status1 + 1000.0 / status2 + 1000.0 / status3;
+    }
+
+    /** @return the fraction (0 to 1) of the bus one controller's status frames use */
+    public double getBusLoad() {
+        return getFramesPerSecond() * BITS_PER_FRAME / BUS_BITS_PER_SECOND;
+    }
+}
@@ -0,0 +1,123 @@
+package frc.robot.motors;
+
+import java.nio.charset.StandardCharsets;
+
+import com.revrobotics.CANSparkMax;
+import com.revrobotics.MotorFeedbackSensor;
+import com.revrobotics.REVLibError;
+import com.revrobotics.SparkMaxPIDController;
+import com.revrobotics.CANSparkMax.IdleMode;
+
+import frc.robot.util.PIDConstant;
+
+/**
+ * Everything we set on a Spark Max that it remembers (once it's burned to flash):
+ * idle mode, inversion, ramp rates, PID gains and which encoder the PID uses.
+ *
+ * Configs are immutable - the with...() methods make a copy with one thing changed.
+ * Two configs that would set the same values have the same {@link #hash()}, which
+ * is how the {@link MotorConfigurator} knows it can skip a controller.
+ */
+public class MotorConfig {
+
+    private final IdleMode idleMode;
+    private final boolean inverted;
+    private final double openLoopRampRate;
+    private final double closedLoopRampRate;
+    private final PIDConstant pid;
+    private final MotorFeedbackSensor feedback;
+    private final int feedbackCountsPerRev;
+
+    public MotorConfig(IdleMode idleMode, boolean inverted, double openLoopRampRate, double closedLoopRampRate) {
+        this(idleMode, inverted, openLoopRampRate, closedLoopRampRate, null, null, 0);
+    }
+
+    private MotorConfig(IdleMode idleMode, boolean inverted, double openLoopRampRate, double closedLoopRampRate,
+            PIDConstant pid, MotorFeedbackSensor feedback, int feedbackCountsPerRev) {
+        this.idleMode = idleMode;
+        this.inverted = inverted;
+        this.openLoopRampRate = openLoopRampRate;
+        this.closedLoopRampRate = closedLoopRampRate;
+        this.pid = pid;
+        this.feedback = feedback;
+        this.feedbackCountsPerRev = feedbackCountsPerRev;
+    }
+
+    public MotorConfig withIdleMode(IdleMode newIdleMode) {
+        return new MotorConfig(newIdleMode, inverted, openLoopRampRate, closedLoopRampRate, pid, feedback, feedbackCountsPerRev);
+    }
+
+    public MotorConfig withPID(PIDConstant newPid) {
+        return new MotorConfig(idleMode, inverted, openLoopRampRate, closedLoopRampRate, newPid, feedback, feedbackCountsPerRev);
+    }
+
+    /**
+     * Uses an external quadrature encoder (already set up with getEncoder()) for the PID.
+     *
+     * Restoring the factory defaults would undo the encoder setup that getEncoder()
+     * did, so controllers with one of these don't get reset before they're configured.
+     */
+    public MotorConfig withQuadratureFeedback(MotorFeedbackSensor encoder, int countsPerRev) {
+        return new MotorConfig(idleMode, inverted, openLoopRampRate, closedLoopRampRate, pid, encoder, countsPerRev);
+    }
+
+    public IdleMode getIdleMode() {
+        return idleMode;
+    }
+
+    public PIDConstant getPID() {
+        return pid;
+    }
+
+    /**
+     * Writes the whole config to the controller and burns it to flash. Every write is
+     * a CAN round trip, so this takes a while - the {@link MotorConfigurator} runs it
+     * on a worker thread.
+     *
+     * @return true if every write worked
+     */
+    public boolean apply(CANSparkMax motor) {
+        boolean ok = true;
+        if (feedback == null) {
+            ok &= motor.restoreFactoryDefaults() == REVLibError.kOk;
+        }
+        ok &= motor.setIdleMode(idleMode) == REVLibError.kOk;
+        motor.setInverted(inverted);
+        ok &= motor.setOpenLoopRampRate(openLoopRampRate) == REVLibError.kOk;
+        ok &= motor.setClosedLoopRampRate(closedLoopRampRate) == REVLibError.kOk;
+        if (pid != null || feedback != null) {
+            SparkMaxPIDController controller = motor.getPIDController();
+            if (feedback != null) {
+                ok &= controller.setFeedbackDevice(feedback) == REVLibError.kOk;
+            }
+            if (pid != null) {
+                pid.configPID(controller);
+            }
+        }
+        ok &= motor.burnFlash() == REVLibError.kOk;
+        return ok;
+    }
+
+    /**
+     * @return a hash of everything in the config that stays the same from one run
+     *  to the next (FNV-1a of {@link #toString()}, so it doesn't depend on object
+     *  identity or enum hashCodes)
+     */
+    public long hash() {
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : toString().getBytes(StandardCharsets.UTF_8)) {
+            hash ^= b & 0xff;
+            hash *= 0x100000001b3L;
+        }
+        return hash;
+    }
+
+    public String toString() {
+        return "idle="+idleMode.name()
+            +",inverted="+inverted
+            +",openRamp="+openLoopRampRate
+            +",closedRamp="+closedLoopRampRate
+            +",pid="+(pid == null ? "none" : pid.toString())
+            +",feedback="+(feedback == null ? "default" : "quadrature:"+feedbackCountsPerRev);
+    }
+}
@@ -0,0 +1,184 @@
+package frc.robot.motors;
+
+import java.io.File;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.revrobotics.CANSparkMax;
+
+import edu.wpi.first.wpilibj.Filesystem;
+import edu.wpi.first.wpilibj.RobotBase;
+import frc.robot.util.Logger;
+import frc.robot.util.MathUtil;
+
+/**
+ * Configures every Spark Max at startup without making robotInit wait for it.
+ *
+ * Writing a config is a long chain of CAN round trips, and doing all of them one
+ * controller at a time used to take several seconds - which is a long time to be
+ * dead on the field if the code restarts mid-match. So:
+ *  - we remember (in {@link #FILE_NAME}) a hash of the config we last burned to each
+ *    controller, and skip any controller that already has the config we want
+ *  - the controllers that do need it get configured in parallel on worker threads
+ *  - anything else that has to happen to a controller after it's configured (like
+ *    its {@link FrameProfile}) gets queued behind its config with {@link #afterConfig}
+ *
+ * Call {@link #awaitCompletion(double)} before driving any motors (the robot does
+ * it in the first mode init). If you swap a controller for one that's never been
+ * configured, delete the file so everything gets configured again.
+ */
+public class MotorConfigurator {
+
+    public static final String FILE_NAME = "motor-config.properties";
+    public static final String ROBOT_DIRECTORY = "/home/lvuser";
+
+    /** How long (in seconds) to wait for configs to finish before giving up on them */
+    public static final double DEFAULT_TIMEOUT = 5.0;
+
+    private static final int THREADS = 4;
+
+    private static final Map<Integer, CompletableFuture<Void>> DEVICES = new HashMap<>();
+    private static final AtomicInteger CONFIGURED = new AtomicInteger();
+    private static final AtomicInteger FAILED = new AtomicInteger();
+    private static ExecutorService executor;
+    private static Properties applied;
+    private static boolean changed;
+    private static int skipped;
+    private static long started;
+
+    /**
+     * Makes sure a controller has this config, on a worker thread. Returns right away.
+     */
+    public static void configure(CANSparkMax motor, MotorConfig config) {
+        Properties hashes = getAppliedHashes();
+        String key = Integer.toString(motor.getDeviceId());
+        String hash = Long.toHexString(config.hash());
+        if (hash.equals(hashes.getProperty(key))) {
+            skipped++;
+            return;
+        }
+
+        afterConfig(motor, () -> {
+            if (config.apply(motor)) {
+                CONFIGURED.incrementAndGet();
+                synchronized (MotorConfigurator.class) {
+                    hashes.setProperty(key, hash);
+                    changed = true;
+                }
+            } else {
+                FAILED.incrementAndGet();
+                Logger.log("motor config: CAN ", key, " didn't take ", config, ", will try again next time");
+            }
+        });
+    }
+
+    /**
+     * Runs something against a controller on a worker thread, after anything
+     * already queued for that controller (e.g. its config) is done
+     */
+    public static synchronized void afterConfig(CANSparkMax motor, Runnable task) {
+        if (started == 0L) {
+            started = System.nanoTime();
+        }
+        CompletableFuture<Void> previous = DEVICES.get(motor.getDeviceId());
+        CompletableFuture<Void> next = previous == null
+            ? CompletableFuture.runAsync(task, getExecutor())
+            : previous.thenRunAsync(task, getExecutor());
+        DEVICES.put(motor.getDeviceId(), next);
+    }
+
+    /**
+     * Waits for every queued config to finish, then saves the hashes of everything
+     * that got configured. Only the first call after something was queued does
+     * anything, so it's fine to call this from every mode init.
+     */
+    public static void awaitCompletion(double timeoutSeconds) {
+        CompletableFuture<?>[] pending;
+        synchronized (MotorConfigurator.class) {
+            if (DEVICES.isEmpty()) {
+                return;
+            }
+            pending = DEVICES.values().toArray(new CompletableFuture<?>[0]);
+            DEVICES.clear();
+        }
+
+        try {
+            CompletableFuture.allOf(pending).get((long) (timeoutSeconds * 1000), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            Logger.log("motor config: still not done after ", timeoutSeconds, "s, carrying on without it");
+        } catch (Exception e) {
+            Logger.log("motor config: failed (", e, ")");
+        }
+
+        // configuring may have changed things (like idle mode) behind the outputs' backs
+        SparkMaxOutput.invalidateAll();
+
+        double seconds = (System.nanoTime() - started) / 1e9;
+        Logger.log("motor config: ", CONFIGURED.get(), " configured, ", skipped, " already up to date, ",
+            FAILED.get(), " failed, in ", MathUtil.round(seconds, 3), "s");
+        started = 0L;
+        saveAppliedHashes();
+    }
+
+    public static void awaitCompletion() {
+        awaitCompletion(DEFAULT_TIMEOUT);
+    }
+
+    private static ExecutorService getExecutor() {
+        if (executor == null) {
+            AtomicInteger count = new AtomicInteger();
+            executor = Executors.newFixedThreadPool(THREADS, runnable -> {
+                Thread thread = new Thread(runnable, "Motor Config " + count.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        return executor;
+    }
+
+    private static File getFile() {
+        File directory = RobotBase.isReal() ? new File(ROBOT_DIRECTORY) : Filesystem.getOperatingDirectory();
+        return new File(directory, FILE_NAME);
+    }
+
+    private static synchronized Properties getAppliedHashes() {
+        if (applied == null) {
+            applied = new Properties();
+            File file = getFile();
+            if (file.exists()) {
+                try (Reader in = new FileReader(file)) {
+                    applied.load(in);
+                } catch (IOException e) {
+                    Logger.log("motor config: unable to read ", file, " (", e, "), configuring everything");
+                    applied.clear();
+                }
+            }
+        }
+        return applied;
+    }
+
+    private static synchronized void saveAppliedHashes() {
+        if (!changed) {
+            return;
+        }
+        File file = getFile();
+        try (Writer out = new FileWriter(file)) {
+            applied.store(out, "config hashes burned to each Spark Max (by CAN id) - delete to reconfigure everything");
+            changed = false;
+        } catch (IOException e) {
+            Logger.log("motor config: unable to save ", file, " (", e, ")");
+        }
+    }
+}
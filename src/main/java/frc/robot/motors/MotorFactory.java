@@ -1,46 +1,112 @@
 package frc.robot.motors;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
 
 import com.revrobotics.CANSparkMax;
 import com.revrobotics.REVPhysicsSim;
 
 import edu.wpi.first.math.system.plant.DCMotor;
+import frc.robot.util.FlightRecorder;
+import frc.robot.util.Logger;
+import frc.robot.util.MathUtil;
 
 /**
  * This is a handy way to create new motors, because it remembers all the motors you
  * make and provides an easy way to update the dashboard and initialize simulated
  * motors, if that's your kind of thing.
+ *
+ * Every motor gets a {@link FrameProfile} for its role, and the factory keeps track
+ * of them (along with any other controllers, like the swerve motors, that get a
+ * profile through {@link #setFrameProfile(CANSparkMax, FrameProfile)}) so we can
+ * estimate how busy the CAN bus is.
  */
 public class MotorFactory {
 
     private static final List<NamedMotor> ALL_MOTORS = new ArrayList<>();
+    private static final Map<Integer, FrameProfile> FRAME_PROFILES = new TreeMap<>();
 
-    public static VelocityClosedLoopMotor makeVelocityClosedLoopMotor(String name, int port) {
+    public static VelocityClosedLoopMotor makeVelocityClosedLoopMotor(String name, int port, FrameProfile profile) {
         VelocityClosedLoopMotor motor = new VelocityClosedLoopMotor(name, port);
+        motor.setFrameProfile(profile);
         ALL_MOTORS.add(motor);
         return motor;
     }
 
-    public static PositionClosedLoopMotor makePositionClosedLoopMotor(String name, int port) {
+    public static PositionClosedLoopMotor makePositionClosedLoopMotor(String name, int port, FrameProfile profile) {
         PositionClosedLoopMotor motor = new PositionClosedLoopMotor(name, port);
+        motor.setFrameProfile(profile);
         ALL_MOTORS.add(motor);
         return motor;
     }
 
-    public static NamedMotor makeNamedMotor(String name, int port) {
+    public static NamedMotor makeNamedMotor(String name, int port, FrameProfile profile) {
         NamedMotor motor = new NamedMotor(name, port);
+        motor.setFrameProfile(profile);
         ALL_MOTORS.add(motor);
         return motor;
     }
 
+    /**
+     * Applies a frame profile to any Spark Max (once it's been configured) and
+     * remembers it for the bus load estimate
+     */
+    public static void setFrameProfile(CANSparkMax motor, FrameProfile profile) {
+        // resetting a controller's config puts its frame periods back too, so this has to wait
+        MotorConfigurator.afterConfig(motor, () -> profile.apply(motor));
+        FRAME_PROFILES.put(motor.getDeviceId(), profile);
+    }
+
+    /**
+     * @return the estimated fraction (0 to 1) of the CAN bus used by status frames
+     *  from all the controllers with a frame profile (commands aren't included)
+     */
+    public static double estimateStatusBusLoad() {
+        double load = 0.0;
+        for (FrameProfile profile : FRAME_PROFILES.values()) {
+            load += profile.getBusLoad();
+        }
+        return load;
+    }
+
+    /**
+     * Logs which profile each controller has, and how much of the bus we think
+     * the status frames take compared to leaving them all at the defaults
+     */
+    public static void logFrameProfiles() {
+        for (Map.Entry<Integer, FrameProfile> entry : FRAME_PROFILES.entrySet()) {
+            Logger.log("CAN ", entry.getKey(), ": ", entry.getValue(), " (",
+                MathUtil.round(entry.getValue().getFramesPerSecond(), 1), " frames/s)");
+        }
+        double defaultLoad = FRAME_PROFILES.size() * FrameProfile.DEFAULT.getBusLoad();
+        Logger.log("CAN status frames: ", FRAME_PROFILES.size(), " controllers, about ",
+            MathUtil.round(estimateStatusBusLoad() * 100.0, 1), "% of the bus (",
+            MathUtil.round(defaultLoad * 100.0, 1), "% with default frame rates)");
+    }
+
+    public static List<NamedMotor> getAllMotors() {
+        return Collections.unmodifiableList(ALL_MOTORS);
+    }
+
     public static void updateDashboard() {
         for (NamedMotor motor : ALL_MOTORS) {
            motor.updateDashboard();
         }
     }
 
+    /**
+     * Adds the position and velocity of every motor to a flight recording
+     */
+    public static void addFlightChannels(FlightRecorder recorder) {
+        for (NamedMotor motor : ALL_MOTORS) {
+            recorder.addChannel(motor.getName()+" Position", motor::getPosition);
+            recorder.addChannel(motor.getName()+" Velocity", motor::getVelocity);
+        }
+    }
+
     public static void simulationInit() {
         for (NamedMotor motor : ALL_MOTORS) {
             CANSparkMax canSpark = motor.getMotor();
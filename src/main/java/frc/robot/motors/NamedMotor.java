@@ -6,34 +6,73 @@ import com.revrobotics.CANSparkMax.ControlType;
 import com.revrobotics.CANSparkMax.IdleMode;
 import com.revrobotics.CANSparkMaxLowLevel.MotorType;
 
-import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
+import frc.robot.util.Dashboard;
+import frc.robot.util.SensorSnapshot;
 
 /**
  * Just a named wrapper around a {@link CANSparkMax} that knows how to put some basic
  * stats about itself into the dashboard.
+ * 
+ * All of the dashboard entries are registered when the motor is created, so
+ * updating the dashboard every loop doesn't build any new strings.
+ * 
+ * The encoder is read once per loop by the {@link SensorSnapshot}, so
+ * {@link #getPosition()} and {@link #getVelocity()} return the values from
+ * the start of the current loop. Commands go through a {@link SparkMaxOutput},
+ * so repeating the same command every loop doesn't cost any CAN traffic.
+ * 
+ * The controller's settings (see {@link MotorConfig}) are written by the
+ * {@link MotorConfigurator} in the background, and only if they've changed.
  */
 public class NamedMotor {
 
+    /** Brake mode, not inverted, with a half second ramp */
+    public static final MotorConfig DEFAULT_CONFIG = new MotorConfig(IdleMode.kBrake, false, 0.5, 0.5);
+
     private final String name;
     private final CANSparkMax motor;
+    private final SparkMaxOutput output;
     private final RelativeEncoder encoder;
-    private final String positionKey;
-    private final String velocityKey;
+    private final SensorSnapshot.CachedEncoder sensor;
+    private final Dashboard.NumberEntry positionEntry;
+    private final Dashboard.NumberEntry velocityEntry;
+    private final Dashboard.NumberEntry velocityFactorEntry;
+    private final Dashboard.NumberEntry positionFactorEntry;
+    private FrameProfile frameProfile;
 
     public NamedMotor(String name, int port) {
+        this(name, port, DEFAULT_CONFIG);
+    }
+
+    protected NamedMotor(String name, int port, MotorConfig config) {
 
         this.name = name;
         this.motor = new CANSparkMax(port, MotorType.kBrushless);
+        this.output = new SparkMaxOutput(motor);
         this.encoder = motor.getEncoder();
+        this.sensor = SensorSnapshot.track(encoder);
 
-        motor.restoreFactoryDefaults();
-        motor.setIdleMode(IdleMode.kBrake);
-        motor.setInverted(false);
-        motor.setOpenLoopRampRate(0.5);
-        motor.setClosedLoopRampRate(0.5);
+        MotorConfigurator.configure(motor, config);
 
-        this.positionKey = name + " Position";
-        this.velocityKey = name + " Velocity";
+        this.positionEntry = makeDashboardEntry("Position");
+        this.velocityEntry = makeDashboardEntry("Velocity");
+        this.velocityFactorEntry = makeDashboardEntry("VCF");
+        this.positionFactorEntry = makeDashboardEntry("PCF");
+
+        // conversion factors are device parameters (a CAN round trip to read),
+        // and we never change them from the default
+        velocityFactorEntry.set(1.0);
+        positionFactorEntry.set(1.0);
+        this.frameProfile = FrameProfile.DEFAULT;
+    }
+
+    /**
+     * Registers an additional dashboard entry for this motor, with the motor's
+     * name in front of the key. Subclasses should call this from their constructor
+     * rather than building keys while updating the dashboard.
+     */
+    protected Dashboard.NumberEntry makeDashboardEntry(String suffix) {
+        return Dashboard.number(name + " " + suffix);
     }
 
     public String getName() {
@@ -44,16 +83,44 @@ public class NamedMotor {
         return motor;
     }
 
+    public FrameProfile getFrameProfile() {
+        return frameProfile;
+    }
+
+    /**
+     * Sets how often the controller sends its status frames (see {@link FrameProfile})
+     */
+    public void setFrameProfile(FrameProfile profile) {
+        frameProfile = profile;
+        MotorFactory.setFrameProfile(motor, profile);
+    }
+
+    public SparkMaxOutput getOutput() {
+        return output;
+    }
+
     public RelativeEncoder getEncoder() {
         return encoder;
     }
 
     public double getPosition() {
-        return encoder.getPosition();
+        return sensor.getPosition();
+    }
+
+    public double getVelocity() {
+        return sensor.getVelocity();
+    }
+
+    /**
+     * Reads the encoder right now, rather than waiting for the next loop. Only
+     * needed by code that runs more often than the main loop.
+     */
+    public void refreshSensor() {
+        sensor.refresh();
     }
     
     public void set(double speed) {
-        motor.set(speed);
+        output.set(speed);
     }
 
     /**
@@ -61,14 +128,12 @@ public class NamedMotor {
      * mode and then applying a 0 duty cycle (basically saying "turn it off")
      */
     public void halt() {
-        getMotor().setIdleMode(IdleMode.kBrake);
-        getMotor().getPIDController().setReference(0.0, ControlType.kDutyCycle);
+        output.setIdleMode(IdleMode.kBrake);
+        output.setReference(0.0, ControlType.kDutyCycle);
     }
 
     public void updateDashboard() {
-        SmartDashboard.putNumber(positionKey, encoder.getPosition());
-        SmartDashboard.putNumber(velocityKey, encoder.getVelocity());
-        SmartDashboard.putNumber(name + " VCF", encoder.getVelocityConversionFactor());
-        SmartDashboard.putNumber(name + " PCF", encoder.getPositionConversionFactor());
+        positionEntry.set(sensor.getPosition());
+        velocityEntry.set(sensor.getVelocity());
     }
 }
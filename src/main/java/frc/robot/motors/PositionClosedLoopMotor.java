@@ -1,51 +1,164 @@
 package frc.robot.motors;
 
-import com.revrobotics.CANSparkMax.IdleMode;
+import com.revrobotics.CANSparkMax.ControlType;
 
-import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
+import edu.wpi.first.wpilibj.Timer;
+import frc.robot.util.Dashboard;
+import frc.robot.util.Logger;
+import frc.robot.util.PIDConstant;
+import frc.robot.util.TrapezoidalProfile;
 
 /**
  * Subclass of {@link AbstractClosedLoopMotor} for motors that will be moved to
  * set positions, or rotated through set angles.
- * 
+ *
  * For these motors, you're extremely unlikely to "set them to 0" because that
  * doesn't mean to stop them, it means to unwind them some crazy number of
  * rotations back to a factory initial value.
+ *
+ * Moves follow a {@link TrapezoidalProfile} (so they speed up and slow down at
+ * a steady rate instead of starting at full speed and creeping in at the end).
+ * {@link #updateSpeed()} steps the profile along and sends the new setpoint to
+ * the Spark Max, which runs the position PID itself at 1kHz. Once the profile
+ * gets there the setpoint stops changing, so holding still costs no CAN traffic.
  */
-public class PositionClosedLoopMotor extends NamedMotor {
+public class PositionClosedLoopMotor extends AbstractClosedLoopMotor {
+
+    /**
+     * Position PID, in rotations; the output range is overridden by {@link #setMaxSpeed}.
+     * These are a starting point and haven't been checked on the indexer yet.
+     */
+    public static final PIDConstant DEFAULT_PID = new PIDConstant(0.2, 0.0, 0.0, 0.0, 0.0, -1.0, 1.0);
 
     private static final double DEFAULT_MAX_SPEED = 0.5;
-    private static final double DEFAULT_THRESHOLD = 0.0005;
-  
-    private double maxSpeed;
+
+    /**
+     * How close to the target (in rotations) counts as there. The Spark Max holds
+     * the position by itself, so unlike the old roboRIO loop this doesn't stop the
+     * motor; it only decides when {@link #isAtTarget()} says yes, which is when the
+     * shooter starts the next lock-in. A P-only loop doesn't settle to within a
+     * hair of the target, and half a rotation out of a 14 rotation lock-in is
+     * close enough for a ball.
+     */
+    private static final double DEFAULT_THRESHOLD = 0.5;
+
+    /**
+     * How long (in seconds) after the profile gets to the target we wait for the
+     * motor to get within the threshold. A P-only loop can stall short (e.g.
+     * against a ball), and we'd rather call it there than never move again.
+     */
+    private static final double DEFAULT_SETTLE_TIMEOUT = 0.5;
+
+    /**
+     * Rotations per second (a NEO at half power is a bit faster). Like the gains,
+     * this and the acceleration haven't been tried on the robot yet.
+     */
+    private static final double DEFAULT_MAX_VELOCITY = 40.0;
+
+    /** Rotations per second per second - full speed in a fifth of a second */
+    private static final double DEFAULT_MAX_ACCELERATION = 200.0;
+
+    /** Longest time step we'll take, in case updates stop without a reset */
+    private static final double MAX_DT = 0.1;
+
+    private final TrapezoidalProfile profile;
     private double threshold;
+    private double settleTimeout;
+    private double finishedAt;
+    private boolean settleWarned;
     private double targetPosition;
     private double totalDelta;
+    private double lastUpdate;
+    private final Dashboard.NumberEntry targetEntry;
+    private final Dashboard.NumberEntry deltaEntry;
+    private final Dashboard.NumberEntry setpointEntry;
 
     public PositionClosedLoopMotor(String name, int port) {
-        super(name, port);
-        getMotor().setIdleMode(IdleMode.kBrake);
-        this.maxSpeed = DEFAULT_MAX_SPEED;
+        super(name, port, DEFAULT_PID);
+        this.profile = new TrapezoidalProfile(DEFAULT_MAX_VELOCITY, DEFAULT_MAX_ACCELERATION);
         this.threshold = DEFAULT_THRESHOLD;
+        this.settleTimeout = DEFAULT_SETTLE_TIMEOUT;
+        this.finishedAt = Double.NaN;
+        this.targetEntry = makeDashboardEntry("Target Postion");
+        this.deltaEntry = makeDashboardEntry("Total Delta");
+        this.setpointEntry = makeDashboardEntry("Setpoint");
+        setMaxSpeed(DEFAULT_MAX_SPEED);
     }
 
     public double getTargetPosition() {
       return targetPosition;
     }
 
+    /** @return where the profile says the motor should be right now */
+    public double getSetpoint() {
+      return profile.getPosition();
+    }
+
+    /**
+     * Limits the duty cycle the position PID can use (either way)
+     */
     public void setMaxSpeed(double newMax) {
-      maxSpeed = newMax;
+      double max = Math.abs(newMax);
+      MotorConfigurator.afterConfig(getMotor(), () -> getController().setOutputRange(-max, max));
     }
 
+    /**
+     * Sets the limits for the motion profile, in rotations per second and
+     * rotations per second per second
+     */
+    public void setProfile(double maxVelocity, double maxAcceleration) {
+      profile.setConstraints(maxVelocity, maxAcceleration);
+    }
+
+    /**
+     * Sets how close (in rotations) counts as being at the target
+     */
     public void setThreshold(double newThresh) {
       threshold = newThresh;
     }
 
     /**
-     * Sets the target position to the current position
+     * Sets how long (in seconds) after the profile finishes the motor gets to
+     * settle within the threshold, before {@link #isAtTarget()} says yes anyway
+     */
+    public void setSettleTimeout(double newTimeout) {
+      settleTimeout = newTimeout;
+    }
+
+    /**
+     * @return true once the profile's finished and the motor is within the
+     *  threshold of the target position (or it's been trying for longer than
+     *  the settle timeout)
+     */
+    public boolean isAtTarget() {
+      if (!profile.isFinished(targetPosition)) {
+        return false;
+      }
+      double error = targetPosition - getPosition();
+      if (Math.abs(error) <= threshold) {
+        return true;
+      }
+
+      // stalled short of the target: once it's had long enough, we call it there
+      // (anything that moves the target next still adds on to where it was headed)
+      if (!Double.isNaN(finishedAt) && Timer.getFPGATimestamp() - finishedAt >= settleTimeout) {
+        if (!settleWarned) {
+          Logger.log(getName(), ": didn't settle, still ", error, " rotations from the target");
+          settleWarned = true;
+        }
+        return true;
+      }
+      return false;
+    }
+
+    /**
+     * Sets the target position to the current position, and starts the profile
+     * from there (standing still), as of now
      */
     public void resetClosedLoopControl() {
+        profile.reset(getPosition());
         setTargetPosition(getPosition());
+        lastUpdate = Timer.getFPGATimestamp();
     }
 
     /**
@@ -55,42 +168,40 @@ public class PositionClosedLoopMotor extends NamedMotor {
     public void setTargetPosition(double newTarget) {
         targetPosition = newTarget;
         totalDelta = targetPosition - getPosition();
+        finishedAt = Double.NaN;
+        settleWarned = false;
     }
 
     /**
-     * Sets the target position to the current position plus a number of rotationx
+     * Moves the target position by a number of rotations. If a move is still
+     * going, this adds on to where it was headed rather than where the motor
+     * happens to be, so the rest of that move isn't lost.
      */
     public void rotate(double rotations) {
-      setTargetPosition(getPosition() + rotations);
+      setTargetPosition(targetPosition + rotations);
     }
 
     /**
-     * Called to update the speed as necessary to bring the current position
-     * closer to the target position
+     * Called to move the profile along towards the target position and send
+     * the new setpoint to the motor controller
      */
     public void updateSpeed() {
-      
-      double currentPosition = getPosition();
-      double currentDelta = targetPosition - currentPosition;
-
-      if (Math.abs(currentDelta) > threshold) {
-        double proportionalSpeed = Math.abs(currentDelta/totalDelta) * maxSpeed;
-        if (currentDelta < 0) {
-          set(-proportionalSpeed);
-        }
-        else {
-          set(proportionalSpeed);
-        }
-      }
-      else {
-        set(0);
+      double now = Timer.getFPGATimestamp();
+      double dt = Math.min(now - lastUpdate, MAX_DT);
+      lastUpdate = now;
+
+      profile.calculate(targetPosition, dt);
+      getOutput().setReference(profile.getPosition(), ControlType.kPosition);
+      if (Double.isNaN(finishedAt) && profile.isFinished(targetPosition)) {
+        finishedAt = now;
       }
     }
 
-    
+
     public void updateDashboard() {
         super.updateDashboard();
-        SmartDashboard.putNumber(getName()+" Target Postion", targetPosition);
-        SmartDashboard.putNumber(getName()+" Total Delta", totalDelta);
+        targetEntry.set(targetPosition);
+        deltaEntry.set(totalDelta);
+        setpointEntry.set(profile.getPosition());
     }
 }
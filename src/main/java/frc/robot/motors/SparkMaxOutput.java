@@ -0,0 +1,115 @@
+package frc.robot.motors;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.revrobotics.CANSparkMax;
+import com.revrobotics.SparkMaxPIDController;
+import com.revrobotics.CANSparkMax.ControlType;
+import com.revrobotics.CANSparkMax.IdleMode;
+
+import edu.wpi.first.wpilibj.Timer;
+
+/**
+ * Sends commands to a {@link CANSparkMax}, but only when they change.
+ *
+ * Every set() or setReference() is a CAN frame, and setIdleMode() is a parameter
+ * write, and most of our code asks for the same thing loop after loop (the intake
+ * coasting, the steering holding an angle...). With 12 controllers that added up
+ * to more than 70% bus utilization. This remembers the last mode and value that
+ * was sent and skips anything that's identical, except that the command gets sent
+ * again every {@link #DEFAULT_KEEP_ALIVE} seconds anyway, in case a controller
+ * browned out and forgot it.
+ *
+ * Call {@link #invalidateAll()} whenever the robot is disabled, so the first command
+ * after enabling always goes out.
+ */
+public class SparkMaxOutput {
+
+    /** How often (in seconds) to resend an unchanged command; 0 means never */
+    public static final double DEFAULT_KEEP_ALIVE = 0.5;
+
+    private static final List<SparkMaxOutput> ALL_OUTPUTS = new ArrayList<>();
+
+    private final CANSparkMax motor;
+    private final SparkMaxPIDController controller;
+    private double keepAlive;
+    private ControlType lastType;
+    private double lastValue;
+    private double lastSent;
+    private IdleMode lastIdleMode;
+
+    public SparkMaxOutput(CANSparkMax motor) {
+        this.motor = motor;
+        this.controller = motor.getPIDController();
+        this.keepAlive = DEFAULT_KEEP_ALIVE;
+        invalidate();
+        ALL_OUTPUTS.add(this);
+    }
+
+    public CANSparkMax getMotor() {
+        return motor;
+    }
+
+    public void setKeepAlive(double seconds) {
+        keepAlive = seconds;
+    }
+
+    /**
+     * Same as {@link CANSparkMax#set(double)} (which is a duty cycle command)
+     */
+    public void set(double speed) {
+        if (isRedundant(speed, ControlType.kDutyCycle)) {
+            return;
+        }
+        motor.set(speed);
+        sent(speed, ControlType.kDutyCycle);
+    }
+
+    /**
+     * Same as {@link SparkMaxPIDController#setReference(double, ControlType)}
+     */
+    public void setReference(double value, ControlType type) {
+        if (isRedundant(value, type)) {
+            return;
+        }
+        controller.setReference(value, type);
+        sent(value, type);
+    }
+
+    public void setIdleMode(IdleMode mode) {
+        if (mode == lastIdleMode) {
+            return;
+        }
+        motor.setIdleMode(mode);
+        lastIdleMode = mode;
+    }
+
+    /**
+     * Forgets what was sent last, so the next command always goes out
+     */
+    public void invalidate() {
+        lastType = null;
+        lastValue = Double.NaN;
+        lastIdleMode = null;
+    }
+
+    public static void invalidateAll() {
+        for (int i=0; i<ALL_OUTPUTS.size(); i++) {
+            ALL_OUTPUTS.get(i).invalidate();
+        }
+    }
+
+    private boolean isRedundant(double value, ControlType type) {
+        if (type != lastType || Double.doubleToLongBits(value) != Double.doubleToLongBits(lastValue)) {
+            return false;
+        }
+        return keepAlive <= 0.0 || Timer.getFPGATimestamp() - lastSent < keepAlive;
+    }
+
+    private void sent(double value, ControlType type) {
+        lastType = type;
+        lastValue = value;
+        lastSent = Timer.getFPGATimestamp();
+    }
+}
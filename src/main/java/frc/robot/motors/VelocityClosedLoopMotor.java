@@ -23,14 +23,14 @@ public class VelocityClosedLoopMotor extends AbstractClosedLoopMotor {
     }
 
     public double getRpm() {
-        return getEncoder().getVelocity();
+        return getVelocity();
     }
 
     public void setRpm(double rpm) {
         if (rpm == 0.0) {
             halt();
         } else {
-            getController().setReference(rpm, ControlType.kVelocity);
+            getOutput().setReference(rpm, ControlType.kVelocity);
         }
     }
 }
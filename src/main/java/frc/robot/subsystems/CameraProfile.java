@@ -0,0 +1,67 @@
+package frc.robot.subsystems;
+
+import edu.wpi.first.cscore.MjpegServer;
+import edu.wpi.first.cscore.VideoSource;
+
+/**
+ * How a camera captures (resolution and frame rate), and how hard the stream
+ * gets compressed on its way to the driver station, depending on what the
+ * camera is for. Out of the box a USB camera sends whatever its default mode
+ * is (often 640x480 at 30fps), which is way more than the drivers need and eats
+ * into the field's bandwidth limit.
+ *
+ * Compression is a JPEG quality from 0 to 100, or -1 to send the camera's own
+ * JPEGs along untouched. Forcing a quality means the roboRIO decodes and
+ * re-encodes every frame, so only do it when the bandwidth matters more than
+ * the CPU.
+ */
+public enum CameraProfile {
+
+    /** Cameras the drivers look through: small and a bit choppy is fine */
+    DRIVER(320, 240, 15, -1),
+
+    /** Cameras that are only for a quick look (e.g. behind the robot) */
+    GLANCE(160, 120, 10, -1),
+
+    /** Cameras the vision code reads; frame rate matters more than anything */
+    VISION(320, 240, 30, -1);
+
+    private final int width;
+    private final int height;
+    private final int fps;
+    private final int compression;
+
+    private CameraProfile(int width, int height, int fps, int compression) {
+        this.width = width;
+        this.height = height;
+        this.fps = fps;
+        this.compression = compression;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    public int getFps() {
+        return fps;
+    }
+
+    public int getCompression() {
+        return compression;
+    }
+
+    /** Sets the camera's resolution and frame rate */
+    public void apply(VideoSource camera) {
+        camera.setResolution(width, height);
+        camera.setFPS(fps);
+    }
+
+    /** Sets the compression of a stream that's showing a camera with this profile */
+    public void apply(MjpegServer server) {
+        server.setCompression(compression);
+    }
+}
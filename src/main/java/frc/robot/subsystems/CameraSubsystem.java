@@ -1,41 +1,131 @@
 package frc.robot.subsystems;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import edu.wpi.first.cameraserver.CameraServer;
+import edu.wpi.first.cscore.MjpegServer;
 import edu.wpi.first.cscore.UsbCamera;
-import edu.wpi.first.cscore.VideoSink;
-import edu.wpi.first.networktables.NetworkTableEntry;
-import edu.wpi.first.wpilibj.XboxController;
+import edu.wpi.first.cscore.VideoSource.ConnectionStrategy;
+import edu.wpi.first.wpilibj2.command.SubsystemBase;
+import frc.robot.input.Action;
+import frc.robot.input.Bindings;
+import frc.robot.util.Dashboard;
 import frc.robot.util.Logger;
 
-public class CameraSubsystem {
-
-    UsbCamera front;
-    UsbCamera back;
-    NetworkTableEntry cameraSelection;
-    XboxController controller;
-    VideoSink server;
-    boolean usingFront;
-
-    public CameraSubsystem(XboxController controller) {
-        this.controller = controller;
-        this.front = CameraServer.startAutomaticCapture(0);
-        this.back = CameraServer.startAutomaticCapture(1);
-        this.server = CameraServer.getServer();
-        this.usingFront = true;
+/**
+ * Owns every camera on the robot. This is the only place cameras get started, so
+ * each one is opened once, with the {@link CameraProfile} that fits what it's for.
+ *
+ * The driver cameras share one stream ({@link #DRIVER_STREAM}), and the camera
+ * switch button flips it between them. The stream's source only changes when
+ * someone actually switches, not every loop.
+ *
+ * Every camera is left to cscore to open and close as needed. A camera that isn't
+ * feeding anyone (not on the driver stream, or the stream has nobody watching)
+ * stops capturing, and nothing gets encoded for it, so it costs no CPU or
+ * bandwidth. The catch is that switching takes a moment while the other camera
+ * starts up.
+ *
+ * Vision cameras aren't on the stream at all; the vision code gets them with
+ * {@link #getCamera(String)} and reads them itself.
+ */
+public class CameraSubsystem extends SubsystemBase {
+
+    /** Name of the stream the drivers watch */
+    public static final String DRIVER_STREAM = "Driver";
+
+    private final Bindings bindings;
+    private final List<UsbCamera> cameras;
+    private final List<UsbCamera> driverCameras;
+    private final List<CameraProfile> driverProfiles;
+    private MjpegServer driverStream;
+    private int selected;
+    private int streaming;
+    private final Dashboard.StringEntry cameraEntry;
+    private final Dashboard.BooleanEntry streamingEntry;
+
+    public CameraSubsystem(Bindings bindings) {
+        this.bindings = bindings;
+        this.cameras = new ArrayList<>();
+        this.driverCameras = new ArrayList<>();
+        this.driverProfiles = new ArrayList<>();
+        this.selected = 0;
+        this.streaming = -1;
+        this.cameraEntry = Dashboard.string("Camera");
+        this.streamingEntry = Dashboard.bool("Camera Streaming?");
     }
 
-    public void robotPeriodic() {
-        if (usingFront) {
-            server.setSource(front);
-        } else {
-            server.setSource(back);
+    /**
+     * Adds a camera the drivers can switch to. The first one added is what the
+     * stream shows to start with.
+     */
+    public UsbCamera addDriverCamera(String name, int port, CameraProfile profile) {
+        UsbCamera camera = addCamera(name, port, profile);
+        if (driverStream == null) {
+            driverStream = CameraServer.addSwitchedCamera(DRIVER_STREAM);
         }
+        driverCameras.add(camera);
+        driverProfiles.add(profile);
+        return camera;
+    }
+
+    /**
+     * Adds a camera that isn't streamed (the vision code reads it directly)
+     */
+    public UsbCamera addVisionCamera(String name, int port, CameraProfile profile) {
+        return addCamera(name, port, profile);
+    }
+
+    private UsbCamera addCamera(String name, int port, CameraProfile profile) {
+        UsbCamera camera = new UsbCamera(name, port);
+        profile.apply(camera);
+        camera.setConnectionStrategy(ConnectionStrategy.kAutoManage);
+        CameraServer.addCamera(camera);
+        cameras.add(camera);
+        Logger.log("cameras: added ", name, " on port ", port, " (", profile, ")");
+        return camera;
     }
 
-    public void teleopPeriodic() {
-        if (controller.getLeftBumperPressed()) {
-            Logger.log("inverting camera; usingFront="+usingFront);
-            usingFront = !usingFront;
+    /** @return the camera with this name, or null */
+    public UsbCamera getCamera(String name) {
+        for (UsbCamera camera : cameras) {
+            if (camera.getName().equals(name)) {
+                return camera;
+            }
         }
+        return null;
+    }
+
+    /** Puts a driver camera on the stream (takes effect in the next periodic) */
+    public void select(int index) {
+        if (index >= 0 && index < driverCameras.size()) {
+            selected = index;
+        }
+    }
+
+    // called 50x per second by the scheduler, no matter what mode we're in
+    @Override
+    public void periodic() {
+        if (driverCameras.isEmpty()) {
+            return;
+        }
+
+        if (bindings.wasPressed(Action.CAMERA_SWITCH)) {
+            selected = (selected + 1) % driverCameras.size();
+        }
+
+        // only touch the stream when it's actually changing
+        if (selected != streaming) {
+            UsbCamera camera = driverCameras.get(selected);
+            driverStream.setSource(camera);
+            driverProfiles.get(selected).apply(driverStream);
+            streaming = selected;
+            Logger.log("cameras: streaming ", camera.getName());
+            cameraEntry.set(camera.getName());
+        }
+
+        // the camera's only enabled while someone is watching
+        streamingEntry.set(driverCameras.get(streaming).isEnabled());
     }
 }
@@ -1,10 +1,16 @@
 package frc.robot.subsystems;
 
+import frc.robot.input.Action;
+import frc.robot.input.Bindings;
+import frc.robot.motors.FrameProfile;
+import frc.robot.motors.MotorFactory;
 import frc.robot.motors.NamedMotor;
+import frc.robot.util.Dashboard;
 import frc.robot.util.Logger;
+import frc.robot.util.PeriodicTasks;
+import frc.robot.util.SensorSnapshot;
 import edu.wpi.first.wpilibj.DigitalInput;
-import edu.wpi.first.wpilibj.XboxController;
-import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
+import edu.wpi.first.wpilibj2.command.SubsystemBase;
 
 /**
  * Subsystem for climbing.
@@ -17,8 +23,12 @@ import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
  * The extender is at its largest position when the arm is contracted.
  * 
  * The rotator is at its largest position when its vertical.
+ *
+ * Once the rotator starts moving forward we're climbing, and {@link #isClimbing()}
+ * stays true until the robot is disabled (the robot uses that to shut down the
+ * intake and shooter).
  */ 
-public class ClimberSubsystem {
+public class ClimberSubsystem extends SubsystemBase {
 
     /** Reset speed */
     public static final double RESET_SPEED = 0.05;
@@ -47,34 +57,56 @@ public class ClimberSubsystem {
     /** Maximum number of rotations of the rotator motor */
     public static final double ROTATION_LIMIT = 110;
 
-    private final XboxController controller;
+    private final Bindings bindings;
     private final NamedMotor extenderMotor;
     private final NamedMotor rotatorMotor;
-    private final DigitalInput extenderSwitch;
-    private final DigitalInput rotatorSwitch;
+    private final SensorSnapshot.CachedSwitch extenderSwitch;
+    private final SensorSnapshot.CachedSwitch rotatorSwitch;
     private double extenderMax;
     private double extenderMin;
     private double rotatorMin;
     private double rotatorMax;
     private boolean resetting;
-    private Runnable disabler;
+    private boolean climbing;
+    private double extenderOutput;
+    private double rotatorOutput;
     private long teleopRounds;
-
-    public ClimberSubsystem(XboxController controller, 
+    private final Dashboard.NumberEntry rotatorMinEntry;
+    private final Dashboard.NumberEntry rotatorCurrentEntry;
+    private final Dashboard.NumberEntry rotatorMaxEntry;
+    private final Dashboard.BooleanEntry rotatorAtMaxEntry;
+    private final Dashboard.NumberEntry extenderMinEntry;
+    private final Dashboard.NumberEntry extenderCurrentEntry;
+    private final Dashboard.NumberEntry extenderMaxEntry;
+    private final Dashboard.BooleanEntry extenderAtMaxEntry;
+    private final Dashboard.NumberEntry counterEntry;
+
+    public ClimberSubsystem(Bindings bindings, 
         int extenderMotorPort, int extenderSwitchPort,
-        int rotatorMotorPort,  int rotatorSwitchPort, Runnable disabler) {
-        this.controller = controller;
-        this.extenderMotor = new NamedMotor("Extender", extenderMotorPort);
-        this.extenderSwitch = new DigitalInput(extenderSwitchPort);
-        this.rotatorMotor = new NamedMotor("Rotator", rotatorMotorPort);
-        this.rotatorSwitch = new DigitalInput(rotatorSwitchPort);
+        int rotatorMotorPort,  int rotatorSwitchPort) {
+        this.bindings = bindings;
+        this.extenderMotor = MotorFactory.makeNamedMotor("Extender", extenderMotorPort, FrameProfile.CLIMBER);
+        this.extenderSwitch = SensorSnapshot.track(new DigitalInput(extenderSwitchPort));
+        this.rotatorMotor = MotorFactory.makeNamedMotor("Rotator", rotatorMotorPort, FrameProfile.CLIMBER);
+        this.rotatorSwitch = SensorSnapshot.track(new DigitalInput(rotatorSwitchPort));
 
         // default: run without limits (dangerous!)
         this.extenderMax = Double.POSITIVE_INFINITY;
         this.extenderMin = Double.NEGATIVE_INFINITY;
         this.rotatorMax = Double.POSITIVE_INFINITY;
         this.rotatorMin = Double.NEGATIVE_INFINITY;
-        this.disabler = disabler;
+
+        this.rotatorMinEntry = Dashboard.number("Rotator Min");
+        this.rotatorCurrentEntry = Dashboard.number("Rotator Current");
+        this.rotatorMaxEntry = Dashboard.number("Rotator Max");
+        this.rotatorAtMaxEntry = Dashboard.bool("Rotator At Max?");
+        this.extenderMinEntry = Dashboard.number("Extender Min");
+        this.extenderCurrentEntry = Dashboard.number("Extender Current");
+        this.extenderMaxEntry = Dashboard.number("Extender Max");
+        this.extenderAtMaxEntry = Dashboard.bool("Extender At Max?");
+        this.counterEntry = Dashboard.number("Climber Counter");
+        PeriodicTasks.add("Climber Limits", PeriodicTasks.FAST, this::guardLimits);
+        PeriodicTasks.add("Climber Dashboard", PeriodicTasks.TELEMETRY, this::updateDashboard);
 
         disabledInit();
     }
@@ -87,25 +119,79 @@ public class ClimberSubsystem {
         return rotatorSwitch.get() == ROTATOR_SWITCH_PRESSED;
     }
 
-    // called 50x per second, no matter what mode we're in
-    public void robotPeriodic() {
-        SmartDashboard.putNumber("Rotator Min", rotatorMin);
-        SmartDashboard.putNumber("Rotator Current", rotatorMotor.getPosition());
-        SmartDashboard.putNumber("Rotator Max", rotatorMax);
-        SmartDashboard.putBoolean("Rotator At Max?", atRotatorLimit());
-        SmartDashboard.putNumber("Extender Min", extenderMin);
-        SmartDashboard.putNumber("Extender Current", extenderMotor.getPosition());
-        SmartDashboard.putNumber("Extender Max", extenderMax);
-        SmartDashboard.putBoolean("Extender At Max?", atExtenderLimit());
-        SmartDashboard.putNumber("Climber Counter", teleopRounds);
+    private void setExtender(double output) {
+        extenderOutput = output;
+        extenderMotor.set(output);
+    }
+
+    private void setRotator(double output) {
+        rotatorOutput = output;
+        rotatorMotor.set(output);
+    }
+
+    // called 200x per second (see PeriodicTasks), no matter what mode we're in.
+    // the main loop only checks the limits 50x per second, and at full speed the
+    // arms can go a long way in 20ms, so this stops them in between. it reads the
+    // switches live, but the positions are whatever the last snapshot had.
+    private void guardLimits() {
+        if (extenderOutput > 0.0 && (extenderSwitch.readNow() == EXTENDER_SWITCH_PRESSED
+                || extenderMotor.getPosition() >= extenderMax)) {
+            setExtender(0.0);
+        } else if (extenderOutput < 0.0 && extenderMotor.getPosition() <= extenderMin) {
+            setExtender(0.0);
+        }
+        if (rotatorOutput > 0.0 && (rotatorSwitch.readNow() == ROTATOR_SWITCH_PRESSED
+                || rotatorMotor.getPosition() >= rotatorMax)) {
+            setRotator(0.0);
+        } else if (rotatorOutput < 0.0 && rotatorMotor.getPosition() <= rotatorMin) {
+            setRotator(0.0);
+        }
+    }
+
+    public double getExtenderMin() {
+        return extenderMin;
+    }
+
+    public double getExtenderMax() {
+        return extenderMax;
+    }
+
+    public double getRotatorMin() {
+        return rotatorMin;
+    }
+
+    public double getRotatorMax() {
+        return rotatorMax;
+    }
+
+    public boolean isResetting() {
+        return resetting;
+    }
+
+    public boolean isClimbing() {
+        return climbing;
+    }
+
+    // called 10x per second (see PeriodicTasks), no matter what mode we're in
+    private void updateDashboard() {
+        rotatorMinEntry.set(rotatorMin);
+        rotatorCurrentEntry.set(rotatorMotor.getPosition());
+        rotatorMaxEntry.set(rotatorMax);
+        rotatorAtMaxEntry.set(atRotatorLimit());
+        extenderMinEntry.set(extenderMin);
+        extenderCurrentEntry.set(extenderMotor.getPosition());
+        extenderMaxEntry.set(extenderMax);
+        extenderAtMaxEntry.set(atExtenderLimit());
+        counterEntry.set(teleopRounds);
     }
 
     // called when the robot is put into disabled mode
     public void disabledInit() {
         Logger.log("climber: putting climbing system in disabled mode");
-        extenderMotor.set(0.0);
-        rotatorMotor.set(0.0);
+        setExtender(0.0);
+        setRotator(0.0);
         resetting = false;
+        climbing = false;
     }
 
     // called when the robot is put into autonomous mode (we will begin to reset)
@@ -132,10 +218,10 @@ public class ClimberSubsystem {
         if (atExtenderLimit()) {
             extenderMax = extenderMotor.getPosition();
             extenderMin = extenderMax - EXTENSION_LIMIT;
-            extenderMotor.set(0.0);
+            setExtender(0.0);
             Logger.log("climber: finished resetting extender");
         } else {
-            extenderMotor.set(RESET_SPEED);
+            setExtender(RESET_SPEED);
             done = false;
         }
 
@@ -143,10 +229,10 @@ public class ClimberSubsystem {
         if (atRotatorLimit()) {
             rotatorMax = rotatorMotor.getPosition();
             rotatorMin = rotatorMax - ROTATION_LIMIT;
-            rotatorMotor.set(0.0);
+            setRotator(0.0);
             Logger.log("climber: finished resetting rotator");
         } else {
-            rotatorMotor.set(RESET_SPEED);
+            setRotator(RESET_SPEED);
             done = false;
         }
 
@@ -166,37 +252,37 @@ public class ClimberSubsystem {
 
         boolean extenderAtMax = extenderMotor.getPosition() >= extenderMax || atExtenderLimit();
         boolean extenderAtMin = extenderMotor.getPosition() <= extenderMin;
-        double extRate = clean(controller.getLeftY());
+        double extRate = clean(bindings.getAxis(Action.CLIMBER_EXTEND));
 
         if (extRate > 0.0 && extenderAtMax) {
             Logger.log("climber: extender won't go too high ...");
-            extenderMotor.set(0.0);
+            setExtender(0.0);
         }
         else if (extRate < 0.0 && extenderAtMin) {
             Logger.log("climber: extender won't go too low ...");
-            extenderMotor.set(0.0);
+            setExtender(0.0);
         } else {
             extRate *= MAX_EXTENSION_OUTPUT;
-            extenderMotor.set(extRate);
+            setExtender(extRate);
         }
 
         boolean rotatorAtMax = rotatorMotor.getPosition() >= rotatorMax || atRotatorLimit();
         boolean rotatorAtMin = rotatorMotor.getPosition() <= rotatorMin;
-        double rotRate = clean(controller.getRightX());
+        double rotRate = clean(bindings.getAxis(Action.CLIMBER_ROTATE));
         if (rotRate > 0.0 && rotatorAtMax) {
             Logger.log("climber: rotator won't go too high ...");
-            rotatorMotor.set(0.0);
+            setRotator(0.0);
         }
         else if (rotRate < 0.0 && rotatorAtMin) {
             Logger.log("climber: rotator won't go too low ...");
-            rotatorMotor.set(0.0);
+            setRotator(0.0);
         } else {
             rotRate *= MAX_ROTATION_OUTPUT;
-            if (rotRate > 0 && disabler != null) {
-                disabler.run();
-                disabler = null;
+            if (rotRate > 0 && !climbing) {
+                Logger.log("climber: climbing");
+                climbing = true;
             }
-            rotatorMotor.set(rotRate);
+            setRotator(rotRate);
         }
     }
 
@@ -0,0 +1,206 @@
+package frc.robot.subsystems;
+
+import edu.wpi.first.wpilibj2.command.SubsystemBase;
+import frc.robot.input.Action;
+import frc.robot.input.Bindings;
+import frc.robot.util.Dashboard;
+import frc.robot.util.LoopTimer;
+import frc.robot.util.MathUtil;
+import frc.robot.util.PeriodicTasks;
+
+/**
+ * Subsystem for driving: the swerve drive and its odometry, steered by the
+ * driver's controller in teleop (or by the autonomous routine).
+ */
+public class DriveSubsystem extends SubsystemBase {
+
+    /** Normal top speed (turbo doubles it) */
+    public static final double MAX_SPEED = 0.3;
+
+    /** How far drive drive turns the wheels at full stick, in steering encoder units */
+    public static final double MAX_CAR_STEER = 5;
+
+    /** ... but it never turns them further than this */
+    public static final double CAR_STEER_LIMIT = 3;
+
+    private final Bindings bindings;
+    private final SwerveDrive swerve;
+    private final SwerveOdometry odometry;
+    private double turboFactor;
+    private double reverseFactor;
+    private long teleopRounds;
+    private final LoopTimer driveDriveTimer;
+    private final LoopTimer macDriveTimer;
+    private final LoopTimer aimBotTimer;
+    private final Dashboard.NumberEntry frontLeftAngleEntry;
+    private final Dashboard.NumberEntry frontRightAngleEntry;
+    private final Dashboard.NumberEntry backRightAngleEntry;
+    private final Dashboard.NumberEntry backLeftAngleEntry;
+    private final Dashboard.NumberEntry frontLeftOutputEntry;
+    private final Dashboard.NumberEntry backLeftOutputEntry;
+    private final Dashboard.NumberEntry odometryXEntry;
+    private final Dashboard.NumberEntry odometryYEntry;
+    private final Dashboard.NumberEntry odometryHeadingEntry;
+    private final Dashboard.BooleanEntry reversedEntry;
+    private final Dashboard.NumberEntry counterEntry;
+
+    public DriveSubsystem(Bindings bindings, SwerveDrive swerve, SwerveOdometry odometry) {
+        this.bindings = bindings;
+        this.swerve = swerve;
+        this.odometry = odometry;
+        this.turboFactor = 1.0;
+        this.reverseFactor = 1.0;
+        this.driveDriveTimer = LoopTimer.named("driveDrive");
+        this.macDriveTimer = LoopTimer.named("macDrive");
+        this.aimBotTimer = LoopTimer.named("AimBot");
+        this.frontLeftAngleEntry = Dashboard.number("FL Angle Position");
+        this.frontRightAngleEntry = Dashboard.number("FR Angle Position");
+        this.backRightAngleEntry = Dashboard.number("BR Angle Position");
+        this.backLeftAngleEntry = Dashboard.number("BL Angle Position");
+        this.frontLeftOutputEntry = Dashboard.number("Front Left Swerve Wheel Output");
+        this.backLeftOutputEntry = Dashboard.number("Back Left Swerve Wheel Output");
+        this.odometryXEntry = Dashboard.number("Odometry X");
+        this.odometryYEntry = Dashboard.number("Odometry Y");
+        this.odometryHeadingEntry = Dashboard.number("Odometry Heading");
+        this.reversedEntry = Dashboard.bool("Drive Reversed?");
+        this.counterEntry = Dashboard.number("Drive Counter");
+        PeriodicTasks.add("Drive Dashboard", PeriodicTasks.TELEMETRY, this::updateDashboard);
+    }
+
+    public SwerveDrive getSwerve() {
+        return swerve;
+    }
+
+    public SwerveOdometry getOdometry() {
+        return odometry;
+    }
+
+    // called 10x per second (see PeriodicTasks), no matter what mode we're in
+    private void updateDashboard() {
+        frontLeftAngleEntry.set(swerve.getModule(SwerveDrive.FRONT_LEFT).getSteerPosition());
+        frontRightAngleEntry.set(swerve.getModule(SwerveDrive.FRONT_RIGHT).getSteerPosition());
+        backRightAngleEntry.set(swerve.getModule(SwerveDrive.BACK_RIGHT).getSteerPosition());
+        backLeftAngleEntry.set(swerve.getModule(SwerveDrive.BACK_LEFT).getSteerPosition());
+        frontLeftOutputEntry.set(swerve.getModule(SwerveDrive.FRONT_LEFT).getDriveOutputValue());
+        backLeftOutputEntry.set(swerve.getModule(SwerveDrive.BACK_LEFT).getDriveOutputValue());
+        odometryXEntry.set(odometry.getX());
+        odometryYEntry.set(odometry.getY());
+        odometryHeadingEntry.set(Math.toDegrees(odometry.getHeading()));
+        reversedEntry.set(reverseFactor < -1.0);
+        counterEntry.set(teleopRounds);
+    }
+
+    // ================================================================
+    // AUTONOMOUS
+    // ================================================================
+
+    /**
+     * Drives in a straight line, without turning
+     *
+     * @param speed how fast
+     * @param angle which way, in radians (0 is forward)
+     */
+    public void forwardBy(double speed, double angle) {
+        swerve.drive(speed * Math.cos(angle), speed * Math.sin(angle), 0.0);
+    }
+
+    // ================================================================
+    // TELEOP
+    // ================================================================
+
+    public void teleopInit() {
+        teleopRounds = 0L;
+        turboFactor = 1.0;
+        reverseFactor = 1.0;
+    }
+
+    // called 50x per second in teleop mode
+    public void teleopPeriodic() {
+
+        teleopRounds++;
+
+        double rightX = bindings.getAxis(Action.DRIVE_TURN);
+        double leftX = bindings.getAxis(Action.DRIVE_X);
+        double leftY = bindings.getAxis(Action.DRIVE_Y);
+
+        // if someone hits reverse, we'll invert the "front" of the vehicle for driving
+        if (bindings.wasPressed(Action.DRIVE_REVERSE)) {
+            reverseFactor = reverseFactor * -1.0;
+        }
+
+        // if someone is holding turbo, we'll double speed
+        if (bindings.isDown(Action.DRIVE_TURBO)) {
+            turboFactor = 2.0;
+        } else {
+            turboFactor = 1.0;
+        }
+
+        if (bindings.isDown(Action.DRIVE_AIM_BOT)) {
+            aimBotTimer.start();
+            aimBot(rightX);
+            aimBotTimer.stop();
+            return;
+        }
+
+        if (bindings.isDown(Action.DRIVE_MAC_DRIVE)) {
+            macDriveTimer.start();
+            macDrive(leftX, leftY, rightX);
+            macDriveTimer.stop();
+            return;
+        }
+
+        driveDriveTimer.start();
+        driveDrive(leftX, leftY, rightX);
+        driveDriveTimer.stop();
+    }
+
+    /* --------------------------------------------------
+       Mac Drive moves like this (strafing), and spins
+       with the right stick at the same time:
+           \---\
+           |   |
+           \---\
+      -------------------------------------------------- */
+
+    public void macDrive(double leftX, double leftY, double rightX) {
+        double speed = MAX_SPEED * turboFactor;
+        swerve.drive(-leftY * speed * reverseFactor, -leftX * speed * reverseFactor, -rightX * rightX * rightX * speed);
+    }
+
+    /* --------------------------------------------------
+       Drive Drive turns like this (car steering):
+           /---/
+           |   |
+           \---\
+      -------------------------------------------------- */
+
+    public void driveDrive(double leftX, double leftY, double rightX) {
+
+        // without the stick pushed forward or back, we leave the wheels alone
+        if (leftY == 0.0) {
+            return;
+        }
+
+        double moveSpeed = Math.sqrt(leftX * leftX + leftY * leftY) * MAX_SPEED * turboFactor * reverseFactor;
+        if (leftY > 0) {
+            moveSpeed = -moveSpeed;
+        }
+        double turnAngle = MathUtil.clamp(rightX * rightX * rightX * MAX_CAR_STEER, -CAR_STEER_LIMIT, CAR_STEER_LIMIT) * reverseFactor;
+
+        // the front wheels turn the other way when we're backing up (like the
+        // old drive drive), so the right stick spins the robot the same way
+        // whether it's going forward or back
+        swerve.carDrive(moveSpeed, (leftY > 0 ? turnAngle : -turnAngle) / swerve.getSteerUnitsPerRadian());
+    }
+
+    /* --------------------------------------------------
+       AimBot turns like this (rotation):
+           /---\
+           |   |
+           \---/
+      -------------------------------------------------- */
+
+    public void aimBot(double rightX) {
+        swerve.drive(0.0, 0.0, -rightX / 8.0 * turboFactor);
+    }
+}
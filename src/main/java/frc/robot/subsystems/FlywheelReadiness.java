@@ -0,0 +1,151 @@
+package frc.robot.subsystems;
+
+/**
+ * Decides when a flywheel is really up to speed, from the last few velocity samples
+ * rather than just the latest one.
+ *
+ * The wheel counts as ready when the average of the last {@link #WINDOW} samples is
+ * within a tolerance of the target and they aren't bouncing around much (a wheel
+ * that's still overshooting can pass through the target on a single sample). The
+ * samples live in a fixed-size ring buffer, so updating allocates nothing.
+ *
+ * Along the way it times how long the wheel takes to get ready after it's turned
+ * on (or the target changes), and how long it takes to recover after a shot
+ * knocks it out of ready, which is handy for tuning the velocity PID.
+ */
+public class FlywheelReadiness {
+
+    /** How many samples we look at (at 50Hz, 0.16s worth) */
+    public static final int WINDOW = 8;
+
+    /** How far the average can be from the target, as a fraction of the target */
+    public static final double DEFAULT_TOLERANCE = 0.03;
+
+    /** How much the samples can wander around the average (standard deviation, in rpm) */
+    public static final double DEFAULT_MAX_DEVIATION = 150.0;
+
+    private final double[] samples;
+    private double tolerance;
+    private double maxDeviation;
+    private int next;
+    private int count;
+    private double target;
+    private double mean;
+    private double deviation;
+    private boolean ready;
+    private boolean wasReady;
+    private double spinUpStarted;
+    private double recoveryStarted;
+    private double lastTimeToReady;
+    private double lastRecoveryTime;
+
+    public FlywheelReadiness() {
+        this.samples = new double[WINDOW];
+        this.tolerance = DEFAULT_TOLERANCE;
+        this.maxDeviation = DEFAULT_MAX_DEVIATION;
+        this.spinUpStarted = Double.NaN;
+        this.recoveryStarted = Double.NaN;
+        this.lastTimeToReady = Double.NaN;
+        this.lastRecoveryTime = Double.NaN;
+    }
+
+    public void setTolerance(double newTolerance, double newMaxDeviation) {
+        tolerance = newTolerance;
+        maxDeviation = newMaxDeviation;
+    }
+
+    /**
+     * Forgets everything; call this when the wheel is turned off
+     */
+    public void reset() {
+        next = 0;
+        count = 0;
+        ready = false;
+        wasReady = false;
+        spinUpStarted = Double.NaN;
+        recoveryStarted = Double.NaN;
+    }
+
+    /**
+     * Adds a sample. Call this once per loop while the wheel is being driven.
+     *
+     * @param now the current time, in seconds
+     * @param newTarget the speed the wheel is supposed to be going
+     * @param rpm the speed it's actually going
+     */
+    public void update(double now, double newTarget, double rpm) {
+        if (Math.abs(newTarget - target) > Math.abs(newTarget) * tolerance) {
+            // a new target starts a new spin up (the old samples still count,
+            // they just have to agree with the new target)
+            wasReady = false;
+            spinUpStarted = now;
+            recoveryStarted = Double.NaN;
+        } else if (Double.isNaN(spinUpStarted) && !wasReady) {
+            spinUpStarted = now;
+        }
+
+        // small changes (like auto range following the robot around) don't
+        // count as a new spin up, but the wheel still has to match them
+        target = newTarget;
+
+        samples[next] = rpm;
+        next = (next + 1) % WINDOW;
+        if (count < WINDOW) {
+            count++;
+        }
+
+        double sum = 0.0;
+        for (int i=0; i<count; i++) {
+            sum += samples[i];
+        }
+        mean = sum / count;
+        double squares = 0.0;
+        for (int i=0; i<count; i++) {
+            double difference = samples[i] - mean;
+            squares += difference * difference;
+        }
+        deviation = Math.sqrt(squares / count);
+
+        ready = count == WINDOW
+            && Math.abs(mean - target) <= Math.abs(target) * tolerance
+            && deviation <= maxDeviation;
+
+        if (ready && !wasReady) {
+            if (!Double.isNaN(recoveryStarted)) {
+                lastRecoveryTime = now - recoveryStarted;
+                recoveryStarted = Double.NaN;
+            } else if (!Double.isNaN(spinUpStarted)) {
+                lastTimeToReady = now - spinUpStarted;
+            }
+            spinUpStarted = Double.NaN;
+        } else if (!ready && wasReady) {
+            recoveryStarted = now;
+        }
+        wasReady = ready;
+    }
+
+    /** @return true if the wheel is at speed and steady */
+    public boolean isReady() {
+        return ready;
+    }
+
+    /** @return the average of the recent samples */
+    public double getMean() {
+        return mean;
+    }
+
+    /** @return the standard deviation of the recent samples */
+    public double getDeviation() {
+        return deviation;
+    }
+
+    /** @return how long (in seconds) the last spin up took to get ready, or NaN */
+    public double getLastTimeToReady() {
+        return lastTimeToReady;
+    }
+
+    /** @return how long (in seconds) the wheel took to get ready again after last dropping out, or NaN */
+    public double getLastRecoveryTime() {
+        return lastRecoveryTime;
+    }
+}
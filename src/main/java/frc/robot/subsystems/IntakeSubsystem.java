@@ -1,44 +1,63 @@
 package frc.robot.subsystems;
 
 import edu.wpi.first.wpilibj.Timer;
-import edu.wpi.first.wpilibj.XboxController;
-import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
+import edu.wpi.first.wpilibj2.command.SubsystemBase;
+import frc.robot.auto.IntakeAction;
+import frc.robot.input.Action;
+import frc.robot.input.Bindings;
+import frc.robot.motors.FrameProfile;
 import frc.robot.motors.MotorFactory;
 import frc.robot.motors.VelocityClosedLoopMotor;
+import frc.robot.util.Dashboard;
 import frc.robot.util.Logger;
+import frc.robot.util.PeriodicTasks;
 
 /**
  * Subsystem for ball intake 
  */
-public class IntakeSubsystem {
+public class IntakeSubsystem extends SubsystemBase {
 
     /** Starting value for the speed of the intake wheel */
     public static final double STARTING_RPM = 14000;
 
     /** Speed value for dropping the frame (rotates in reverse) */
     public static final double DROP_FRAME_SPEED = -0.03;
-
-    /** Amount of time for dropping the frame */
-    public static final double DROP_FRAME_SECONDS = 5.0;
     
-    private final XboxController controller;
+    private final Bindings bindings;
     private final VelocityClosedLoopMotor intakeMotor;
     private boolean spinWheel;
     private double targetSpeed;
     private long teleopRounds;
-
-    public IntakeSubsystem(XboxController controller, int intakeMotorPort) {
-        this.controller = controller;
-        this.intakeMotor = MotorFactory.makeVelocityClosedLoopMotor("Intake", intakeMotorPort);
+    private final Dashboard.NumberEntry targetRpmEntry;
+    private final Dashboard.NumberEntry currentRpmEntry;
+    private final Dashboard.BooleanEntry spinningEntry;
+    private final Dashboard.NumberEntry counterEntry;
+
+    public IntakeSubsystem(Bindings bindings, int intakeMotorPort) {
+        this.bindings = bindings;
+        this.intakeMotor = MotorFactory.makeVelocityClosedLoopMotor("Intake", intakeMotorPort, FrameProfile.INDEXER);
+        this.targetRpmEntry = Dashboard.number("Intake Target RPM");
+        this.currentRpmEntry = Dashboard.number("Intake Current RPM");
+        this.spinningEntry = Dashboard.bool("Intake Spinning?");
+        this.counterEntry = Dashboard.number("Intake Counter");
+        PeriodicTasks.add("Intake Dashboard", PeriodicTasks.TELEMETRY, this::updateDashboard);
         disabledInit();
     }
 
-    // called 50x per second, no matter what mode we're in
-    public void robotPeriodic() {
-        SmartDashboard.putNumber("Intake Target RPM", targetSpeed);
-        SmartDashboard.putNumber("Intake Current RPM", intakeMotor.getRpm());
-        SmartDashboard.putBoolean("Intake Spinning?", spinWheel);
-        SmartDashboard.putNumber("Intake Counter", teleopRounds);
+    public boolean isSpinning() {
+        return spinWheel;
+    }
+
+    public double getTargetSpeed() {
+        return targetSpeed;
+    }
+
+    // called 10x per second (see PeriodicTasks), no matter what mode we're in
+    private void updateDashboard() {
+        targetRpmEntry.set(targetSpeed);
+        currentRpmEntry.set(intakeMotor.getRpm());
+        spinningEntry.set(spinWheel);
+        counterEntry.set(teleopRounds);
     }
     
     // called when the robot is put into disabled mode
@@ -50,42 +69,31 @@ public class IntakeSubsystem {
     }
 
     // ================================================================
-    // SINGLE SHOOTER
-    // Autonomous routine that drops the frame only
-    // ================================================================
-
-    public void singleShooterInit() {
-        Logger.log("intake: starting single shooter");
-    }
-
-    public void singleShooterPeriodic(double seconds) {
-        if (seconds < 3.0) {
-            intakeMotor.set(DROP_FRAME_SPEED);
-        } else if (seconds < DROP_FRAME_SECONDS) {
-            intakeMotor.set(5 * DROP_FRAME_SPEED);
-        } else {
-            intakeMotor.coast();
-        }
-    }
-
-    // ================================================================
-    // DOUBLE SHOOTER
-    // Autonomous routine that drops the frame and picks up a ball
+    // AUTONOMOUS
+    // Does whatever the current segment of the routine says
     // ================================================================
 
-    public void doubleShooterInit() {
-        Logger.log("intake: starting double shooter");
+    public void autonomousInit() {
+        Logger.log("intake: starting autonomous");
     }
 
-    public void doubleShooterPeriodic(double seconds) {
-        if (seconds < 3.0) {
-            intakeMotor.set(DROP_FRAME_SPEED);
-        } else if (seconds < DROP_FRAME_SECONDS) {
-            intakeMotor.set(5 * DROP_FRAME_SPEED);
-        } else if (seconds < 10.0) {
-            intakeMotor.setRpm(STARTING_RPM);
-        } else {
-            intakeMotor.coast();
+    public void autonomousPeriodic(IntakeAction action) {
+        switch (action) {
+            case DROP_FRAME:
+                intakeMotor.set(DROP_FRAME_SPEED);
+                break;
+            case DROP_FRAME_FAST:
+                intakeMotor.set(5 * DROP_FRAME_SPEED);
+                break;
+            case INTAKE:
+                intakeMotor.setRpm(STARTING_RPM);
+                break;
+            case COAST:
+                intakeMotor.coast();
+                break;
+            default:
+                intakeMotor.halt();
+                break;
         }
     }
 
@@ -99,7 +107,7 @@ public class IntakeSubsystem {
         teleopRounds++;
         
         // back button turns the wheel on and off
-        if (controller.getBackButtonPressed()) {
+        if (bindings.wasPressed(Action.INTAKE_TOGGLE)) {
             spinWheel = !spinWheel;
             Logger.log("intake: toggled intake wheel to ", spinWheel);
         }
@@ -107,24 +115,24 @@ public class IntakeSubsystem {
         // if the wheel is spinning, we'll allow speed changes
         if (spinWheel) {
 
-            // hold both bumpers: reset target speed
-            if (controller.getAButtonPressed()) {
+            // reset target speed
+            if (bindings.wasPressed(Action.INTAKE_RESET_SPEED)) {
                 targetSpeed = STARTING_RPM;
                 Logger.log("intake: reset intake wheel to ", targetSpeed);
             }
-            // press left bumper: go 10% slower
-            else if (controller.getXButtonPressed()) {
+            // go 10% slower
+            else if (bindings.wasPressed(Action.INTAKE_SLOWER)) {
                 targetSpeed *= 0.9;
                 Logger.log("intake: slowed down intake wheel to ", targetSpeed);
             }
-            // press right bumper: go 10% faster
-            else if (controller.getYButton()) {
+            // go 10% faster
+            else if (bindings.wasPressed(Action.INTAKE_FASTER)) {
                 targetSpeed *= 1.1;
                 Logger.log("intake: sped up intake wheel to ", targetSpeed);
             }
 
-            // hold left trigger: reverse the wheel
-            if (controller.getLeftTriggerAxis() > 0.5) {
+            // hold to reverse the wheel
+            if (bindings.isDown(Action.INTAKE_REVERSE)) {
                 intakeMotor.setRpm(-targetSpeed);
             }
             else {
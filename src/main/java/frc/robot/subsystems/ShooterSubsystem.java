@@ -1,19 +1,26 @@
 package frc.robot.subsystems;
 
 import edu.wpi.first.wpilibj.DigitalInput;
-import edu.wpi.first.wpilibj.XboxController;
-import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
+import edu.wpi.first.wpilibj.Timer;
+import edu.wpi.first.wpilibj2.command.SubsystemBase;
+import frc.robot.auto.ShooterAction;
+import frc.robot.input.Action;
+import frc.robot.input.Bindings;
+import frc.robot.motors.FrameProfile;
 import frc.robot.motors.MotorFactory;
 import frc.robot.motors.PositionClosedLoopMotor;
 import frc.robot.motors.VelocityClosedLoopMotor;
+import frc.robot.util.Dashboard;
 import frc.robot.util.Logger;
+import frc.robot.util.PeriodicTasks;
+import frc.robot.util.SensorSnapshot;
 
 /**
  * Subsystem for shooting
  */
-public class ShooterSubsystem {
+public class ShooterSubsystem extends SubsystemBase {
 
-    /** Minimum speed for the launch wheel to avoid a ball getting stuck */
+    /** Minimum speed for the launch wheel to avoid a ball getting stuck (on top of being ready) */
     public static final double MINIMUM_LAUNCH_RPM = -2000;
 
     /** Because sometimes DigitalInput switches are reversed */
@@ -22,6 +29,9 @@ public class ShooterSubsystem {
     /** Starting speed of the launch wheel */
     public static final double STARTING_LAUNCH_RPM = -12000;
 
+    /** Whether the launch speed starts out following the {@link ShotMap} */
+    public static final boolean STARTING_AUTO_RANGE = false;
+
     /** Maximum speed at which to rotate the indexer */
     public static final double INDEXER_MAX_SPEED = 0.5;
 
@@ -31,27 +41,59 @@ public class ShooterSubsystem {
     /** How many rotations does the indexer need to push out a ball? */
     public static final double SHOOT_ROTATIONS = 40;
 
-    private final XboxController controller;
-    private final DigitalInput ballSensor;
+    private final Bindings bindings;
+    private final SensorSnapshot.CachedSwitch ballSensor;
     private final VelocityClosedLoopMotor launchWheel;
     private final PositionClosedLoopMotor indexerWheel;
+    private final ShotMap shotMap;
+    private final FlywheelReadiness readiness;
     private boolean spinLaunchWheel;
     private int indexerResetCount;
+    private boolean indexerClosedLoop;
     private double targetLaunchSpeed;
-    private int autoShotsPending;
+    private double targetDistance;
+    private boolean autoRange;
     private long teleopRounds;
-
-    public ShooterSubsystem(XboxController controller, 
+    private final Dashboard.BooleanEntry spinningEntry;
+    private final Dashboard.NumberEntry targetRpmEntry;
+    private final Dashboard.NumberEntry currentRpmEntry;
+    private final Dashboard.NumberEntry indexerTargetEntry;
+    private final Dashboard.NumberEntry indexerCurrentEntry;
+    private final Dashboard.NumberEntry counterEntry;
+    private final Dashboard.BooleanEntry ballSensorEntry;
+    private final Dashboard.BooleanEntry autoRangeEntry;
+    private final Dashboard.NumberEntry distanceEntry;
+    private final Dashboard.BooleanEntry readyEntry;
+    private final Dashboard.NumberEntry timeToReadyEntry;
+    private final Dashboard.NumberEntry recoveryTimeEntry;
+
+    public ShooterSubsystem(Bindings bindings, 
             int launchMotorPort, 
             int indexerMotorPort, 
             int ballAvailableSwitchPort) {
         System.err.println("initializing shooter");
-        this.controller = controller;
-        this.ballSensor = new DigitalInput(ballAvailableSwitchPort);
-        this.launchWheel = MotorFactory.makeVelocityClosedLoopMotor("Launch", launchMotorPort);
-        this.indexerWheel = MotorFactory.makePositionClosedLoopMotor("Indexer", indexerMotorPort);
+        this.bindings = bindings;
+        this.ballSensor = SensorSnapshot.track(new DigitalInput(ballAvailableSwitchPort));
+        this.launchWheel = MotorFactory.makeVelocityClosedLoopMotor("Launch", launchMotorPort, FrameProfile.FLYWHEEL);
+        this.indexerWheel = MotorFactory.makePositionClosedLoopMotor("Indexer", indexerMotorPort, FrameProfile.INDEXER);
         indexerWheel.setMaxSpeed(INDEXER_MAX_SPEED);
-        autoShotsPending = 2;
+        this.shotMap = ShotMap.load(STARTING_LAUNCH_RPM);
+        this.readiness = new FlywheelReadiness();
+        this.spinningEntry = Dashboard.bool("Launch Spinning?");
+        this.targetRpmEntry = Dashboard.number("Launch Target RPM");
+        this.currentRpmEntry = Dashboard.number("Launch Current RPM");
+        this.indexerTargetEntry = Dashboard.number("Indexer Target Pos");
+        this.indexerCurrentEntry = Dashboard.number("Indexer Current Pos");
+        this.counterEntry = Dashboard.number("Shooter Counter");
+        this.ballSensorEntry = Dashboard.bool("Ball Sensor");
+        this.autoRangeEntry = Dashboard.bool("Launch Auto Range?");
+        this.distanceEntry = Dashboard.number("Launch Distance");
+        this.readyEntry = Dashboard.bool("Launch Ready?");
+        this.timeToReadyEntry = Dashboard.number("Launch Time To Ready");
+        this.recoveryTimeEntry = Dashboard.number("Launch Recovery Time");
+        PeriodicTasks.add("Indexer", PeriodicTasks.FAST, this::updateIndexerClosedLoop);
+        PeriodicTasks.add("Shooter Dashboard", PeriodicTasks.TELEMETRY, this::updateDashboard);
+        autoRange = STARTING_AUTO_RANGE;
         disabledInit();
     }
 
@@ -60,92 +102,116 @@ public class ShooterSubsystem {
         spinLaunchWheel = enabled;
     }
 
-    public void shoot() {
-        boolean atSpeed = launchWheel.getRpm() < MINIMUM_LAUNCH_RPM; // yes, less than, because speeds are negative
+    public boolean isLaunchWheelEnabled() {
+        return spinLaunchWheel;
+    }
+
+    public double getTargetLaunchSpeed() {
+        return targetLaunchSpeed;
+    }
+
+    /**
+     * Tells the shooter how far away the target is. If auto range is on, the
+     * launch speed gets set from the {@link ShotMap}. Call this every loop.
+     */
+    public void setTargetDistance(double distance) {
+        targetDistance = distance;
+        if (autoRange) {
+            targetLaunchSpeed = shotMap.getRpm(distance);
+        }
+    }
+
+    public double getTargetDistance() {
+        return targetDistance;
+    }
+
+    public void setAutoRange(boolean enabled) {
+        Logger.log("shooter: setting auto range to enabled=", enabled);
+        autoRange = enabled;
+        if (autoRange) {
+            targetLaunchSpeed = shotMap.getRpm(targetDistance);
+        }
+    }
+
+    public boolean isAutoRange() {
+        return autoRange;
+    }
+
+    public boolean isBallAvailable() {
+        return ballSensor.get();
+    }
+
+    /** @return true if the launch wheel is on, at its target speed and steady */
+    public boolean isLaunchWheelReady() {
+        return spinLaunchWheel && readiness.isReady();
+    }
+
+    /**
+     * Fires a ball if the launch wheel is ready
+     * 
+     * @return true if it fired
+     */
+    public boolean shoot() {
+        boolean atSpeed = isLaunchWheelReady()
+            && readiness.getMean() < MINIMUM_LAUNCH_RPM; // yes, less than, because speeds are negative
         if (atSpeed) {
             Logger.log("shooter: shooting!");
             indexerWheel.rotate(SHOOT_ROTATIONS);    
         } else {
             Logger.log("shooter: refusing to shoot; not at speed");
         }
+        return atSpeed;
     }
 
-    // called 50x per second, no matter what mode we're in
-    public void robotPeriodic() {
-        SmartDashboard.putBoolean("Launch Spinning?", spinLaunchWheel);
-        SmartDashboard.putNumber("Launch Target RPM", targetLaunchSpeed);
-        SmartDashboard.putNumber("Launch Current RPM", launchWheel.getRpm());
-        SmartDashboard.putNumber("Indexer Target Pos", indexerWheel.getTargetPosition());
-        SmartDashboard.putNumber("Indexer Current Pos", indexerWheel.getPosition());
-        SmartDashboard.putNumber("Shooter Counter", teleopRounds);
-        SmartDashboard.putBoolean("Ball Sensor", ballSensor.get());
+    // called 10x per second (see PeriodicTasks), no matter what mode we're in
+    private void updateDashboard() {
+        spinningEntry.set(spinLaunchWheel);
+        targetRpmEntry.set(targetLaunchSpeed);
+        currentRpmEntry.set(launchWheel.getRpm());
+        indexerTargetEntry.set(indexerWheel.getTargetPosition());
+        indexerCurrentEntry.set(indexerWheel.getPosition());
+        counterEntry.set(teleopRounds);
+        ballSensorEntry.set(ballSensor.get());
+        autoRangeEntry.set(autoRange);
+        distanceEntry.set(targetDistance);
+        readyEntry.set(isLaunchWheelReady());
+        timeToReadyEntry.set(readiness.getLastTimeToReady());
+        recoveryTimeEntry.set(readiness.getLastRecoveryTime());
     }
 
     // called when the robot is put into disabled mode
     public void disabledInit() {
         spinLaunchWheel = false;
-        targetLaunchSpeed = STARTING_LAUNCH_RPM;
+        targetLaunchSpeed = autoRange ? shotMap.getRpm(targetDistance) : STARTING_LAUNCH_RPM;
         indexerResetCount = 0;
+        indexerClosedLoop = false;
         launchWheel.halt();
         indexerWheel.resetClosedLoopControl();
     }
 
     // ================================================================
-    // SINGLE SHOOTER
-    // Autonomous routine that shoots a single ball after a while
+    // AUTONOMOUS
+    // Does whatever the current segment of the routine says (the routine
+    // keeps track of how many balls it still wants to fire)
     // ================================================================
 
-    public void singleShooterInit() {
-        autoShotsPending = 1;
-        Logger.log("shooter: starting single shooter");
+    public void autonomousInit() {
+        Logger.log("shooter: starting autonomous");
     }
 
-    public void singleShooterPeriodic(double seconds) {
-        if (seconds > 2.0) {
-            if (!spinLaunchWheel) {
-                setLaunchWheelEnabled(true);
-            }
-            if (seconds > 10.5 && autoShotsPending > 1) {
-                shoot();
-                autoShotsPending--;
-            }
-            if (seconds > 12) {
-                setLaunchWheelEnabled(false);
-            }    
-        }
-        updateLaunchWheel();
-        updateIndexerWheel();
-    }
-
-    // ================================================================
-    // DOUBLE SHOOTER
-    // Start routine that shoots two balls after a while
-    // ================================================================
-
-    public void doubleShooterInit() {
-        autoShotsPending = 2;
-        Logger.log("shooter: starting double shooter");
-    }
-
-    public void doubleShooterPeriodic(double seconds) {
-        if (seconds > 2.0) {
-            if (!spinLaunchWheel) {
-                setLaunchWheelEnabled(true);
-            }
-            if (seconds > 10.5 && autoShotsPending > 1) {
-                shoot();
-                autoShotsPending--;
-            }
-            if (seconds > 12.5 && autoShotsPending > 0) {
-                shoot();
-                autoShotsPending--;
-            }
-            if (seconds > 14) {
-                setLaunchWheelEnabled(false);
-            }         
+    /**
+     * @param fire true if the routine wants a ball fired as soon as the launch wheel is ready
+     * @return true if a ball got fired
+     */
+    public boolean autonomousPeriodic(ShooterAction action, boolean fire) {
+        boolean spin = action != ShooterAction.OFF;
+        if (spin != spinLaunchWheel) {
+            setLaunchWheelEnabled(spin);
         }
+        boolean fired = spin && fire && isLaunchWheelReady() && shoot();
         updateLaunchWheel();
         updateIndexerWheel();
+        return fired;
     }
     
     public void teleopInit() {
@@ -165,34 +231,45 @@ public class ShooterSubsystem {
      */
     protected void updateLaunchWheel() {
 
-        // start button toggles the launch wheel on and off
-        if (controller.getStartButtonPressed()) {
+        // toggle the launch wheel on and off
+        if (bindings.wasPressed(Action.LAUNCH_TOGGLE)) {
             setLaunchWheelEnabled(!spinLaunchWheel);
         }
 
-        // if the launch wheel is spinning, we'll allow speed changes
+        // toggle picking the speed from the distance
+        if (bindings.wasPressed(Action.LAUNCH_AUTO_RANGE)) {
+            setAutoRange(!autoRange);
+        }
+
+        // if the launch wheel is spinning, we'll allow speed changes (which
+        // take over from auto range)
         if (spinLaunchWheel) {
 
-            // A button: reset launch speed
-            if (controller.getAButtonPressed()) {
+            // reset launch speed
+            if (bindings.wasPressed(Action.LAUNCH_RESET_SPEED)) {
+                autoRange = false;
                 targetLaunchSpeed = STARTING_LAUNCH_RPM;
                 Logger.log("shooter: reset launch wheel to ", targetLaunchSpeed);
             }
-            // X button: go 10% slower
-            else if (controller.getXButtonPressed()) {
+            // go 2.5% slower
+            else if (bindings.wasPressed(Action.LAUNCH_SLOWER)) {
+                autoRange = false;
                 targetLaunchSpeed *= 0.975;
                 Logger.log("shooter: slowed down launch wheel to ", targetLaunchSpeed);
             }
-            // Y button: go 10% faster
-            else if (controller.getYButtonPressed()) {
+            // go 2.5% faster
+            else if (bindings.wasPressed(Action.LAUNCH_FASTER)) {
+                autoRange = false;
                 targetLaunchSpeed *= 1.025;
                 Logger.log("shooter: sped up launch wheel to ", targetLaunchSpeed);
             }
 
             launchWheel.setRpm(targetLaunchSpeed);
+            readiness.update(Timer.getFPGATimestamp(), targetLaunchSpeed, launchWheel.getRpm());
         }
         else {
             launchWheel.coast();
+            readiness.reset();
         }
     }
 
@@ -201,10 +278,11 @@ public class ShooterSubsystem {
      */
     public void updateIndexerWheel() {
 
-        // if the left bumper is held, someone wants to rotate the index wheel
+        // if indexer reverse is held, someone wants to rotate the index wheel
         // backwards a skoche. disabled closed loop control and do it. this is
         // the only thing we'll do.
-        if (controller.getLeftBumper()) {
+        if (bindings.isDown(Action.INDEXER_REVERSE)) {
+            indexerClosedLoop = false;
             indexerWheel.set(-INDEXER_MAX_SPEED / 5.0);
             indexerResetCount = 50;
             return;
@@ -222,18 +300,29 @@ public class ShooterSubsystem {
         }
 
         // trigger indexing IF there is a ball in front of the sensor now,
-        // and there wasn't one last time
-        if (ballSensor.get()) {
+        // and the indexer isn't still busy moving the last one
+        if (ballSensor.get() && indexerWheel.isAtTarget()) {
             Logger.log("shooter: rotating for intake");
             indexerWheel.rotate(LOCKIN_ROTATIONS);
         }
 
         // if someone wants to shoot, and the wheel's at speed and we 
         // have a ball, go for it!
-        if (controller.getBButtonPressed()) {
+        if (bindings.wasPressed(Action.SHOOT)) {
             shoot();
         }
 
-        indexerWheel.updateSpeed();
+        // the position loop itself runs faster than this (see below)
+        indexerClosedLoop = true;
+    }
+
+    /**
+     * Runs the indexer's position profile, 200x per second (see PeriodicTasks),
+     * whenever the indexer is under closed loop control
+     */
+    private void updateIndexerClosedLoop() {
+        if (indexerClosedLoop) {
+            indexerWheel.updateSpeed();
+        }
     }
 }
\ No newline at end of file
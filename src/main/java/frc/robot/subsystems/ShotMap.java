@@ -0,0 +1,165 @@
+package frc.robot.subsystems;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import edu.wpi.first.wpilibj.Filesystem;
+import frc.robot.util.Logger;
+import frc.robot.util.MathUtil;
+
+/**
+ * What speed to spin the launch wheel at to make a shot from a given distance.
+ *
+ * The table is a handful of (distance, rpm) points measured on the practice field,
+ * kept in {@link #FILE_NAME} in the deploy directory so it can be re-tuned without
+ * touching the code. Between two points the rpm is interpolated in a straight line;
+ * outside the table it sticks at the nearest end.
+ *
+ * The file has one "distance,rpm" pair per line (blank lines and lines starting
+ * with # are skipped). Distances are in the same units as the odometry.
+ */
+public class ShotMap {
+
+    public static final String FILE_NAME = "shotmap.csv";
+
+    private final double[] distances;
+    private final double[] rpms;
+
+    /**
+     * @param distances sorted, smallest first, no repeats
+     * @param rpms the launch rpm for each distance
+     */
+    public ShotMap(double[] distances, double[] rpms) {
+        if (distances.length == 0 || distances.length != rpms.length) {
+            throw new IllegalArgumentException("need the same (non-zero) number of distances and rpms");
+        }
+        for (int i=1; i<distances.length; i++) {
+            if (distances[i] <= distances[i-1]) {
+                throw new IllegalArgumentException("distances must be sorted with no repeats");
+            }
+        }
+        this.distances = distances.clone();
+        this.rpms = rpms.clone();
+    }
+
+    /**
+     * Loads {@link #FILE_NAME} from the deploy directory. If it's missing or
+     * broken, every distance gets the fallback rpm. A distance that's in there
+     * more than once gets the average of its rpms.
+     */
+    public static ShotMap load(double fallbackRpm) {
+        return load(new File(Filesystem.getDeployDirectory(), FILE_NAME), fallbackRpm);
+    }
+
+    public static ShotMap load(File file, double fallbackRpm) {
+        if (!file.exists()) {
+            Logger.log("shot map: no ", file, " (it gets measured on the practice field), using ", fallbackRpm, " rpm for everything");
+            return new ShotMap(new double[] { 0.0 }, new double[] { fallbackRpm });
+        }
+        List<double[]> points = new ArrayList<>();
+        try (BufferedReader in = new BufferedReader(new FileReader(file))) {
+            String line;
+            while ((line = in.readLine()) != null) {
+                line = line.trim();
+                if (line.isEmpty() || line.startsWith("#")) {
+                    continue;
+                }
+                String[] parts = line.split(",");
+                double distance = Double.parseDouble(parts[0].trim());
+                double rpm = Double.parseDouble(parts[1].trim());
+                if (!Double.isFinite(distance) || !Double.isFinite(rpm)) {
+                    throw new NumberFormatException("not a number: " + line);
+                }
+                points.add(new double[] { distance, rpm });
+            }
+        } catch (IOException | RuntimeException e) {
+            Logger.log("shot map: unable to load ", file, " (", e, "), using ", fallbackRpm, " rpm for everything");
+            return new ShotMap(new double[] { 0.0 }, new double[] { fallbackRpm });
+        }
+        if (points.isEmpty()) {
+            Logger.log("shot map: ", file, " is empty, using ", fallbackRpm, " rpm for everything");
+            return new ShotMap(new double[] { 0.0 }, new double[] { fallbackRpm });
+        }
+
+        // shots measured more than once from the same distance get averaged
+        points.sort((l, r) -> Double.compare(l[0], r[0]));
+        double[] distances = new double[points.size()];
+        double[] rpms = new double[points.size()];
+        int count = 0;
+        int repeats = 0;
+        for (int i=0; i<points.size(); i++) {
+            double[] point = points.get(i);
+            if (count > 0 && point[0] == distances[count-1]) {
+                repeats++;
+                rpms[count-1] += point[1];
+                continue;
+            }
+            if (repeats > 0) {
+                rpms[count-1] /= repeats + 1;
+                repeats = 0;
+            }
+            distances[count] = point[0];
+            rpms[count] = point[1];
+            count++;
+        }
+        if (repeats > 0) {
+            rpms[count-1] /= repeats + 1;
+        }
+        if (count < points.size()) {
+            Logger.log("shot map: ", file, " has ", points.size() - count, " repeated distances, averaging them");
+        }
+
+        try {
+            ShotMap map = new ShotMap(Arrays.copyOf(distances, count), Arrays.copyOf(rpms, count));
+            Logger.log("shot map: loaded ", count, " points from ", distances[0], " to ", distances[count-1]);
+            return map;
+        } catch (IllegalArgumentException e) {
+            Logger.log("shot map: unable to use ", file, " (", e, "), using ", fallbackRpm, " rpm for everything");
+            return new ShotMap(new double[] { 0.0 }, new double[] { fallbackRpm });
+        }
+    }
+
+    /**
+     * @return the launch rpm for a shot from this distance
+     */
+    public double getRpm(double distance) {
+        int last = distances.length - 1;
+        if (distance <= distances[0]) {
+            return rpms[0];
+        }
+        if (distance >= distances[last]) {
+            return rpms[last];
+        }
+
+        // find the first point past the distance (there has to be one, and one before it)
+        int low = 1;
+        int high = last;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (distances[middle] < distance) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        double t = (distance - distances[low-1]) / (distances[low] - distances[low-1]);
+        return MathUtil.lerp(rpms[low-1], rpms[low], t);
+    }
+
+    public int size() {
+        return distances.length;
+    }
+
+    public double getMinDistance() {
+        return distances[0];
+    }
+
+    public double getMaxDistance() {
+        return distances[distances.length - 1];
+    }
+}
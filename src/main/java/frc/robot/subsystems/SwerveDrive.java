@@ -0,0 +1,143 @@
+package frc.robot.subsystems;
+
+import frc.robot.util.PIDConstant;
+
+/**
+ * The swerve base. Given how fast we want to go forward (vx), to the left (vy) and
+ * how fast we want to spin counter-clockwise (omega), works out the speed and angle
+ * for each of the four wheels (the "inverse kinematics") so the robot can drive in
+ * any direction while it turns.
+ *
+ * All three inputs are fractions of full speed: vx = 1 drives every wheel forward at
+ * full duty cycle, and omega = 1 spins the robot so the wheels (which are all the
+ * same distance from the center) go full speed. If a combination asks for more
+ * than full speed from any wheel, all of them get scaled down together so the robot
+ * still goes in the requested direction.
+ *
+ * The modules are in the order front left, front right, back right, back left.
+ * Nothing in {@link #drive(double, double, double)} allocates.
+ */
+public class SwerveDrive {
+
+    public static final int FRONT_LEFT = 0;
+    public static final int FRONT_RIGHT = 1;
+    public static final int BACK_RIGHT = 2;
+    public static final int BACK_LEFT = 3;
+
+    /** Below this speed a wheel just stops, rather than snapping around to a new angle */
+    public static final double MIN_SPEED = 1e-3;
+
+    private final SwerveModule[] modules;
+    private final double radius;
+    private final double halfLength;
+    private final double steerUnitsPerRadian;
+    private final double[] speeds;
+    private final double[] angles;
+
+    /**
+     * @param length distance between the front and back wheels
+     * @param width distance between the left and right wheels
+     * @param rotateAngle the steering encoder position that turns a wheel square to the
+     *  center of the robot (for spinning in place)
+     * @param maxSteer the most the wheels can be turned either way, in encoder position units
+     */
+    public SwerveDrive(int[] driveIds, int[] steerIds, double length, double width, double rotateAngle,
+            double maxSteer, PIDConstant steeringPid) {
+
+        // spinning in place, each wheel is turned atan(length/width) off straight ahead
+        double unitsPerRadian = rotateAngle / Math.atan2(length, width);
+        double halfLength = length / 2.0;
+        double halfWidth = width / 2.0;
+
+        // the left drive motors are mounted the other way around
+        this.modules = new SwerveModule[] {
+            new SwerveModule("FL", driveIds[FRONT_LEFT], steerIds[FRONT_LEFT], halfLength, halfWidth, -1.0, unitsPerRadian, maxSteer, steeringPid),
+            new SwerveModule("FR", driveIds[FRONT_RIGHT], steerIds[FRONT_RIGHT], halfLength, -halfWidth, 1.0, unitsPerRadian, maxSteer, steeringPid),
+            new SwerveModule("BR", driveIds[BACK_RIGHT], steerIds[BACK_RIGHT], -halfLength, -halfWidth, 1.0, unitsPerRadian, maxSteer, steeringPid),
+            new SwerveModule("BL", driveIds[BACK_LEFT], steerIds[BACK_LEFT], -halfLength, halfWidth, -1.0, unitsPerRadian, maxSteer, steeringPid)
+        };
+        this.radius = Math.hypot(halfLength, halfWidth);
+        this.halfLength = halfLength;
+        this.steerUnitsPerRadian = unitsPerRadian;
+        this.speeds = new double[modules.length];
+        this.angles = new double[modules.length];
+    }
+
+    public SwerveModule getModule(int index) {
+        return modules[index];
+    }
+
+    /** @return how far each module is from the center of the robot */
+    public double getRadius() {
+        return radius;
+    }
+
+    public int getModuleCount() {
+        return modules.length;
+    }
+
+    /** @return how many steering encoder position units turn a wheel one radian */
+    public double getSteerUnitsPerRadian() {
+        return steerUnitsPerRadian;
+    }
+
+    /**
+     * Drives the robot.
+     *
+     * @param vx forward speed, -1 to 1
+     * @param vy speed to the left, -1 to 1
+     * @param omega counter-clockwise spin, -1 to 1
+     */
+    public void drive(double vx, double vy, double omega) {
+        double fastest = 0.0;
+        for (int i=0; i<modules.length; i++) {
+            SwerveModule module = modules[i];
+
+            // each wheel moves with the robot, plus (omega x r) from the spin
+            double wheelX = vx - omega * module.getY() / radius;
+            double wheelY = vy + omega * module.getX() / radius;
+            speeds[i] = Math.hypot(wheelX, wheelY);
+            angles[i] = speeds[i] < MIN_SPEED ? module.getTargetAngle() : Math.atan2(wheelY, wheelX);
+            fastest = Math.max(fastest, speeds[i]);
+        }
+
+        double scale = fastest > 1.0 ? 1.0 / fastest : 1.0;
+        for (int i=0; i<modules.length; i++) {
+            if (speeds[i] < MIN_SPEED) {
+                modules[i].stop();
+            } else {
+                modules[i].set(speeds[i] * scale, angles[i]);
+            }
+        }
+    }
+
+    /**
+     * Drives like a car with four-wheel steering: the front wheels turn one way and
+     * the back ones the other, so the robot drives an arc around a point level with
+     * its center. How fast it turns depends on how fast it's going, so standing
+     * still it doesn't turn at all.
+     *
+     * @param vx forward speed, -1 to 1
+     * @param steerAngle how far the front wheels turn, in radians (counter-clockwise)
+     */
+    public void carDrive(double vx, double steerAngle) {
+        // the front wheels are halfLength ahead of the center, so the arc's
+        // radius is halfLength / tan(steerAngle)
+        drive(vx, 0.0, vx * Math.tan(steerAngle) * radius / halfLength);
+    }
+
+    /**
+     * Points every wheel straight ahead and stops
+     */
+    public void straighten() {
+        for (int i=0; i<modules.length; i++) {
+            modules[i].set(0.0, 0.0);
+        }
+    }
+
+    public void stop() {
+        for (int i=0; i<modules.length; i++) {
+            modules[i].stop();
+        }
+    }
+}
@@ -0,0 +1,200 @@
+package frc.robot.subsystems;
+
+import com.revrobotics.CANSparkMax;
+import com.revrobotics.RelativeEncoder;
+import com.revrobotics.SparkMaxPIDController;
+import com.revrobotics.SparkMaxRelativeEncoder;
+import com.revrobotics.CANSparkMax.ControlType;
+import com.revrobotics.CANSparkMax.IdleMode;
+import com.revrobotics.CANSparkMaxLowLevel.MotorType;
+
+import frc.robot.Constants;
+import frc.robot.motors.FrameProfile;
+import frc.robot.motors.MotorConfig;
+import frc.robot.motors.MotorConfigurator;
+import frc.robot.motors.MotorFactory;
+import frc.robot.motors.SparkMaxOutput;
+import frc.robot.util.MathUtil;
+import frc.robot.util.PIDConstant;
+import frc.robot.util.SensorSnapshot;
+
+/**
+ * One corner of the swerve base: a brushless drive motor, and a brushed steering
+ * motor with a quadrature encoder that the Spark Max uses to hold an angle.
+ *
+ * The steering encoder is zeroed when the robot starts, so the wheels have to be
+ * pointing straight ahead when it's turned on. Angles are in radians, positive is
+ * counter-clockwise (to the left) looking down at the robot.
+ */
+public class SwerveModule {
+
+    /** Counts per revolution of the steering encoders */
+    public static final int STEER_COUNTS_PER_REV = 104;
+
+    /** How far the wheel rolls for one rotation of the drive motor */
+    public static final double DRIVE_DISTANCE_PER_ROTATION = Constants.wheelCircumference / Constants.driveGearRatio;
+
+    /** Drive motors coast (the factory default) and ramp up over a second */
+    public static final MotorConfig DRIVE_CONFIG = new MotorConfig(IdleMode.kCoast, false, 1.0, 0.0);
+
+    /** Steering motors are mounted backwards */
+    public static final MotorConfig STEER_CONFIG = new MotorConfig(IdleMode.kCoast, true, 0.0, 0.0);
+
+    private final String name;
+    private final double x;
+    private final double y;
+    private final double driveSign;
+    private final double steerUnitsPerRadian;
+    private final double maxSteer;
+    private final CANSparkMax driveMotor;
+    private final CANSparkMax steerMotor;
+    private final SparkMaxPIDController steerController;
+    private final RelativeEncoder driveEncoder;
+    private final RelativeEncoder steerEncoder;
+    private final SensorSnapshot.CachedEncoder steerSensor;
+    private final SparkMaxOutput driveOutput;
+    private final SparkMaxOutput steerOutput;
+    private double angle;
+
+    /**
+     * @param name e.g. "FL"
+     * @param x how far forward of the center of the robot this module is
+     * @param y how far left of the center of the robot this module is
+     * @param driveSign 1 if a positive duty cycle drives this wheel forward, -1 if it drives it backward
+     * @param steerUnitsPerRadian encoder position units per radian of wheel rotation
+     * @param maxSteer the most the wheel can be turned either way, in encoder position units
+     */
+    public SwerveModule(String name, int driveId, int steerId, double x, double y, double driveSign,
+            double steerUnitsPerRadian, double maxSteer, PIDConstant steeringPid) {
+        this.name = name;
+        this.x = x;
+        this.y = y;
+        this.driveSign = driveSign;
+        this.steerUnitsPerRadian = steerUnitsPerRadian;
+        this.maxSteer = maxSteer;
+
+        this.driveMotor = new CANSparkMax(driveId, MotorType.kBrushless);
+        this.steerMotor = new CANSparkMax(steerId, MotorType.kBrushed);
+        this.driveEncoder = driveMotor.getEncoder();
+        this.steerEncoder = steerMotor.getEncoder(SparkMaxRelativeEncoder.Type.kQuadrature, STEER_COUNTS_PER_REV);
+        steerEncoder.setPosition(0);
+        this.steerSensor = SensorSnapshot.track(steerEncoder);
+        this.steerController = steerMotor.getPIDController();
+
+        MotorConfigurator.configure(driveMotor, DRIVE_CONFIG);
+        MotorConfigurator.configure(steerMotor, STEER_CONFIG
+            .withPID(steeringPid)
+            .withQuadratureFeedback(steerEncoder, STEER_COUNTS_PER_REV));
+        MotorFactory.setFrameProfile(driveMotor, FrameProfile.DRIVE);
+        MotorFactory.setFrameProfile(steerMotor, FrameProfile.STEER);
+
+        this.driveOutput = new SparkMaxOutput(driveMotor);
+        this.steerOutput = new SparkMaxOutput(steerMotor);
+        this.angle = 0.0;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public double getX() {
+        return x;
+    }
+
+    public double getY() {
+        return y;
+    }
+
+    public CANSparkMax getDriveMotor() {
+        return driveMotor;
+    }
+
+    public CANSparkMax getSteerMotor() {
+        return steerMotor;
+    }
+
+    public SparkMaxPIDController getSteerController() {
+        return steerController;
+    }
+
+    public SparkMaxOutput getDriveOutput() {
+        return driveOutput;
+    }
+
+    public SparkMaxOutput getSteerOutput() {
+        return steerOutput;
+    }
+
+    /** @return the steering encoder position (as of the start of this loop) */
+    public double getSteerPosition() {
+        return steerSensor.getPosition();
+    }
+
+    /** @return the angle the wheel is being steered to, in radians */
+    public double getTargetAngle() {
+        return angle;
+    }
+
+    /** @return the duty cycle last sent to the drive motor */
+    public double getDriveOutputValue() {
+        return driveMotor.get();
+    }
+
+    /**
+     * Reads how far the wheel has rolled forward (in the same units as
+     * {@link Constants#wheelCircumference}) straight from the encoder. This is for
+     * the odometry thread; the main loop should stick to the snapshot.
+     */
+    public double readDriveDistance() {
+        return driveEncoder.getPosition() * driveSign * DRIVE_DISTANCE_PER_ROTATION;
+    }
+
+    /**
+     * Reads the wheel's angle (in radians) straight from the encoder, for the
+     * odometry thread.
+     */
+    public double readSteerAngle() {
+        return steerEncoder.getPosition() / steerUnitsPerRadian;
+    }
+
+    /** Re-zeroes the steering encoder (the wheel should be pointing straight ahead) */
+    public void resetSteering() {
+        steerEncoder.setPosition(0);
+        steerSensor.refresh();
+    }
+
+    /**
+     * Points the wheel at an angle and drives it at a speed (a duty cycle, positive
+     * is the direction the wheel is pointing). Since the wheel can drive either way,
+     * an angle more than 90 degrees off straight ahead gets turned around and the
+     * speed reversed, so the wheel never has to turn more than a quarter turn.
+     */
+    public void set(double speed, double radians) {
+        if (radians > Math.PI / 2) {
+            radians -= Math.PI;
+            speed = -speed;
+        } else if (radians < -Math.PI / 2) {
+            radians += Math.PI;
+            speed = -speed;
+        }
+        angle = radians;
+        double position = MathUtil.clamp(radians * steerUnitsPerRadian, -maxSteer, maxSteer);
+        steerOutput.setReference(position, ControlType.kPosition);
+        driveOutput.set(speed * driveSign);
+    }
+
+    /**
+     * Stops the wheel without moving the steering
+     */
+    public void stop() {
+        driveOutput.set(0.0);
+    }
+
+    /**
+     * Drives the motors directly, for testing
+     */
+    public void setRaw(double driveSpeed, double steerSpeed) {
+        driveOutput.set(driveSpeed);
+        steerOutput.set(steerSpeed);
+    }
+}
@@ -0,0 +1,210 @@
+package frc.robot.subsystems;
+
+import java.lang.invoke.VarHandle;
+
+import com.kauailabs.navx.frc.AHRS;
+
+import edu.wpi.first.wpilibj.Notifier;
+import edu.wpi.first.wpilibj.RobotController;
+import edu.wpi.first.wpilibj.SPI;
+import frc.robot.util.Logger;
+
+/**
+ * Keeps track of where the robot is on the field (x, y and heading) by reading the
+ * swerve encoders and the navX gyro 200 times a second on its own thread, which is
+ * a lot more accurate than anything we could do at the main loop's 50Hz.
+ *
+ * Positions are in the same units as {@link frc.robot.Constants#wheelCircumference},
+ * x is forward and y is to the left of wherever the robot was when the pose was
+ * last reset, and the heading is in radians, counter-clockwise.
+ *
+ * The odometry thread never blocks the main loop: it writes each new pose into
+ * whichever of two buffers the main loop isn't supposed to be reading, then
+ * publishes it by bumping a volatile counter. {@link #update()} copies the latest
+ * pose once per loop (retrying in the very rare case that the odometry thread
+ * lapped it while it was copying), and the getters return that copy, so like the
+ * {@link frc.robot.util.SensorSnapshot}, everything in one loop sees the same pose.
+ * If the gyro isn't connected, the heading comes from the wheels instead.
+ */
+public class SwerveOdometry {
+
+    /** How often the odometry thread runs, in seconds */
+    public static final double PERIOD = 0.005;
+
+    private static final int X = 0;
+    private static final int Y = 1;
+    private static final int HEADING = 2;
+    private static final int TIMESTAMP = 3;
+
+    private final SwerveDrive swerve;
+    private final AHRS gyro;
+    private final Notifier notifier;
+    private final int moduleCount;
+    private final double radiusSquared;
+
+    // odometry thread only
+    private final double[] lastDistances;
+    private double x;
+    private double y;
+    private double heading;
+    private double gyroOffset;
+    private long resetsHandled;
+    private boolean gyroWarned;
+
+    // the handoff between the threads
+    private final double[][] buffers;
+    private volatile long published;
+    private volatile long resetsRequested;
+    private volatile double resetX;
+    private volatile double resetY;
+    private volatile double resetHeading;
+
+    // main loop only
+    private final double[] pose;
+
+    public SwerveOdometry(SwerveDrive swerve) {
+        this.swerve = swerve;
+        this.gyro = new AHRS(SPI.Port.kMXP);
+        this.moduleCount = swerve.getModuleCount();
+        double radius = swerve.getRadius();
+        this.radiusSquared = radius * radius;
+        this.lastDistances = new double[moduleCount];
+        this.buffers = new double[2][4];
+        this.pose = new double[4];
+
+        for (int i=0; i<moduleCount; i++) {
+            lastDistances[i] = swerve.getModule(i).readDriveDistance();
+        }
+        gyroOffset = readGyroHeading();
+
+        this.notifier = new Notifier(this::sample);
+        notifier.setName("Odometry");
+    }
+
+    public void start() {
+        notifier.startPeriodic(PERIOD);
+    }
+
+    public void stop() {
+        notifier.stop();
+    }
+
+    /**
+     * Moves the robot (as far as odometry is concerned) to a new pose. Takes
+     * effect on the odometry thread's next sample.
+     */
+    public void resetPose(double newX, double newY, double newHeading) {
+        resetX = newX;
+        resetY = newY;
+        resetHeading = newHeading;
+        resetsRequested++;
+    }
+
+    /**
+     * Copies the latest pose from the odometry thread. Call this once at the
+     * start of every loop.
+     */
+    public void update() {
+        long seen;
+        do {
+            seen = published;
+            double[] buffer = buffers[(int) (seen & 1)];
+            pose[X] = buffer[X];
+            pose[Y] = buffer[Y];
+            pose[HEADING] = buffer[HEADING];
+            pose[TIMESTAMP] = buffer[TIMESTAMP];
+            // make sure the copy is finished before we check it's still good
+            VarHandle.loadLoadFence();
+        } while (published != seen);
+    }
+
+    public double getX() {
+        return pose[X];
+    }
+
+    public double getY() {
+        return pose[Y];
+    }
+
+    public double getHeading() {
+        return pose[HEADING];
+    }
+
+    /** @return when the current pose was measured (FPGA time, in seconds) */
+    public double getTimestamp() {
+        return pose[TIMESTAMP];
+    }
+
+    /**
+     * Runs on the odometry thread, every {@link #PERIOD} seconds
+     */
+    private void sample() {
+        double gyroHeading = readGyroHeading();
+
+        if (resetsRequested != resetsHandled) {
+            resetsHandled = resetsRequested;
+            x = resetX;
+            y = resetY;
+            heading = resetHeading;
+            gyroOffset = gyroHeading - resetHeading;
+        }
+
+        // how far the middle of the robot moved (in the robot's own frame), and
+        // how much it turned according to the wheels
+        double dx = 0.0;
+        double dy = 0.0;
+        double dTheta = 0.0;
+        for (int i=0; i<moduleCount; i++) {
+            SwerveModule module = swerve.getModule(i);
+            double distance = module.readDriveDistance();
+            double angle = module.readSteerAngle();
+            double delta = distance - lastDistances[i];
+            lastDistances[i] = distance;
+
+            double moduleDx = delta * Math.cos(angle);
+            double moduleDy = delta * Math.sin(angle);
+            dx += moduleDx;
+            dy += moduleDy;
+            dTheta += (module.getX() * moduleDy - module.getY() * moduleDx) / radiusSquared;
+        }
+        dx /= moduleCount;
+        dy /= moduleCount;
+        dTheta /= moduleCount;
+
+        double previousHeading = heading;
+        if (gyro.isConnected()) {
+            heading = gyroHeading - gyroOffset;
+        } else {
+            if (!gyroWarned) {
+                Logger.log("odometry: navX isn't connected, using the wheels for heading");
+                gyroWarned = true;
+            }
+            heading += dTheta;
+            gyroOffset = gyroHeading - heading;
+        }
+
+        // turn the robot-relative move into a field-relative one, using the
+        // heading half way through the move
+        double midHeading = (previousHeading + heading) / 2.0;
+        double cos = Math.cos(midHeading);
+        double sin = Math.sin(midHeading);
+        x += dx * cos - dy * sin;
+        y += dx * sin + dy * cos;
+
+        // the loop could still be copying the buffer we published last time, so
+        // write into the other one (and not before that publish is visible)
+        long next = published + 1;
+        double[] buffer = buffers[(int) (next & 1)];
+        VarHandle.storeStoreFence();
+        buffer[X] = x;
+        buffer[Y] = y;
+        buffer[HEADING] = heading;
+        buffer[TIMESTAMP] = RobotController.getFPGATime() / 1e6;
+        published = next;
+    }
+
+    /** The navX's angle is in degrees, clockwise */
+    private double readGyroHeading() {
+        return -Math.toRadians(gyro.getAngle());
+    }
+}
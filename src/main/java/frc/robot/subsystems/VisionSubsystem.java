@@ -0,0 +1,208 @@
+package frc.robot.subsystems;
+
+import java.lang.invoke.VarHandle;
+
+import org.opencv.core.Mat;
+
+import edu.wpi.first.cscore.CvSink;
+import edu.wpi.first.cscore.VideoSource;
+import edu.wpi.first.wpilibj.DriverStation.Alliance;
+import edu.wpi.first.wpilibj.RobotController;
+import edu.wpi.first.wpilibj2.command.SubsystemBase;
+import frc.robot.util.Dashboard;
+import frc.robot.util.Logger;
+import frc.robot.util.PeriodicTasks;
+import frc.robot.vision.BallPipeline;
+
+/**
+ * Looks for balls with a camera, on its own thread, so the main loop never waits
+ * on image processing.
+ *
+ * The vision thread grabs the newest frame from the camera, runs it through a
+ * {@link BallPipeline} and works out which way the ball is and how far away it is.
+ * cscore always hands over the newest frame rather than queueing them up, and if
+ * we got that frame too late anyway (because the processing fell behind), we drop
+ * it instead of aiming at where the ball used to be.
+ *
+ * Results get handed to the main loop the same way {@link SwerveOdometry} hands
+ * over poses: the vision thread writes into whichever of two buffers the main loop
+ * isn't reading, and publishes it by bumping a volatile counter. {@link #periodic()}
+ * copies the latest one, so everything in a loop sees the same target, along with
+ * when the frame it came from was captured.
+ *
+ * Angles are in radians, counter-clockwise (so a ball to the left is positive),
+ * like the odometry heading. Distances are in inches, straight from the camera
+ * to the ball.
+ *
+ * Experimental: the field of view and the pipeline's color ranges haven't been
+ * checked against real balls yet, so nothing drives from these numbers.
+ */
+public class VisionSubsystem extends SubsystemBase {
+
+    /** How wide the camera sees (the LifeCam HD-3000's spec; not measured on our cameras) */
+    public static final double HORIZONTAL_FOV = Math.toRadians(61.0);
+
+    /** How big the balls are, in inches */
+    public static final double BALL_DIAMETER = 9.5;
+
+    /** Frames that are older than this (in seconds) by the time we get them are dropped */
+    public static final double MAX_FRAME_AGE = 0.1;
+
+    /** Targets that are older than this (in seconds) don't count any more */
+    public static final double MAX_TARGET_AGE = 0.25;
+
+    /** How long to wait for a frame before checking on the camera again, in seconds */
+    public static final double FRAME_TIMEOUT = 0.5;
+
+    private static final int FOUND = 0;
+    private static final int ANGLE = 1;
+    private static final int DISTANCE = 2;
+    private static final int TIMESTAMP = 3;
+
+    // vision thread only
+    private final VideoSource camera;
+    private final BallPipeline pipeline;
+    private final Thread thread;
+    private Alliance pipelineAlliance;
+    private boolean cameraWarned;
+
+    // the handoff between the threads
+    private final double[][] buffers;
+    private volatile long published;
+    private volatile long dropped;
+    private volatile Alliance alliance;
+
+    // main loop only
+    private final double[] target;
+    private final Dashboard.BooleanEntry foundEntry;
+    private final Dashboard.NumberEntry angleEntry;
+    private final Dashboard.NumberEntry distanceEntry;
+    private final Dashboard.NumberEntry latencyEntry;
+    private final Dashboard.NumberEntry droppedEntry;
+
+    public VisionSubsystem(VideoSource camera) {
+        this.camera = camera;
+        this.pipeline = new BallPipeline();
+        this.buffers = new double[2][4];
+        this.target = new double[4];
+        this.alliance = Alliance.Invalid;
+        this.foundEntry = Dashboard.bool("Ball Found?");
+        this.angleEntry = Dashboard.number("Ball Angle");
+        this.distanceEntry = Dashboard.number("Ball Distance");
+        this.latencyEntry = Dashboard.number("Ball Latency ms");
+        this.droppedEntry = Dashboard.number("Vision Dropped Frames");
+        PeriodicTasks.add("Vision Dashboard", PeriodicTasks.TELEMETRY, this::updateDashboard);
+
+        this.thread = new Thread(this::run, "Vision");
+        thread.setDaemon(true);
+        thread.setPriority(Thread.MIN_PRIORITY);
+    }
+
+    public void start() {
+        thread.start();
+    }
+
+    /** Picks which color of ball to look for (takes effect on the next frame) */
+    public void setAlliance(Alliance newAlliance) {
+        alliance = newAlliance;
+    }
+
+    // called 50x per second by the scheduler, no matter what mode we're in
+    @Override
+    public void periodic() {
+        long seen;
+        do {
+            seen = published;
+            double[] buffer = buffers[(int) (seen & 1)];
+            target[FOUND] = buffer[FOUND];
+            target[ANGLE] = buffer[ANGLE];
+            target[DISTANCE] = buffer[DISTANCE];
+            target[TIMESTAMP] = buffer[TIMESTAMP];
+            // make sure the copy is finished before we check it's still good
+            VarHandle.loadLoadFence();
+        } while (published != seen);
+    }
+
+    // called 10x per second (see PeriodicTasks), no matter what mode we're in
+    private void updateDashboard() {
+        foundEntry.set(hasTarget());
+        angleEntry.set(Math.toDegrees(target[ANGLE]));
+        distanceEntry.set(target[DISTANCE]);
+        latencyEntry.set(getTargetAge() * 1000.0);
+        droppedEntry.set(dropped);
+    }
+
+    /** @return true if we saw a ball recently */
+    public boolean hasTarget() {
+        return target[FOUND] != 0.0 && getTargetAge() < MAX_TARGET_AGE;
+    }
+
+    /** @return which way the ball is, relative to where the camera points */
+    public double getTargetAngle() {
+        return target[ANGLE];
+    }
+
+    /** @return how far away the ball is */
+    public double getTargetDistance() {
+        return target[DISTANCE];
+    }
+
+    /** @return when the frame the ball was seen in was captured (FPGA time, in seconds) */
+    public double getTargetTimestamp() {
+        return target[TIMESTAMP];
+    }
+
+    /** @return how long ago the frame the ball was seen in was captured, in seconds */
+    public double getTargetAge() {
+        return RobotController.getFPGATime() / 1e6 - target[TIMESTAMP];
+    }
+
+    /**
+     * Runs on the vision thread, forever
+     */
+    private void run() {
+        CvSink sink = new CvSink("Ball Vision");
+        sink.setSource(camera);
+        Mat frame = new Mat();
+        while (!Thread.currentThread().isInterrupted()) {
+
+            // on the roboRIO, cscore timestamps frames with the FPGA clock
+            long frameTime = sink.grabFrame(frame, FRAME_TIMEOUT);
+            if (frameTime == 0) {
+                if (!cameraWarned) {
+                    Logger.log("vision: no frames from ", camera.getName(), " (", sink.getError(), ")");
+                    cameraWarned = true;
+                }
+                continue;
+            }
+            cameraWarned = false;
+            if (RobotController.getFPGATime() - frameTime > MAX_FRAME_AGE * 1e6) {
+                dropped++;
+                continue;
+            }
+
+            Alliance currentAlliance = alliance;
+            if (currentAlliance != pipelineAlliance) {
+                pipeline.setAlliance(currentAlliance);
+                pipelineAlliance = currentAlliance;
+            }
+            boolean found = pipeline.process(frame);
+
+            // pinhole camera: the focal length (in pixels) turns pixels into angles,
+            // and the ball's size in pixels into how far away it is
+            double focalLength = frame.cols() / 2.0 / Math.tan(HORIZONTAL_FOV / 2.0);
+            double offset = pipeline.getCenterX() - frame.cols() / 2.0;
+
+            // the loop could still be copying the buffer we published last time, so
+            // write into the other one (and not before that publish is visible)
+            long next = published + 1;
+            double[] buffer = buffers[(int) (next & 1)];
+            VarHandle.storeStoreFence();
+            buffer[FOUND] = found ? 1.0 : 0.0;
+            buffer[ANGLE] = found ? -Math.atan2(offset, focalLength) : 0.0;
+            buffer[DISTANCE] = found ? BALL_DIAMETER * focalLength / pipeline.getDiameter() : 0.0;
+            buffer[TIMESTAMP] = frameTime / 1e6;
+            published = next;
+        }
+    }
+}
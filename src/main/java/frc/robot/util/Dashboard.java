@@ -0,0 +1,204 @@
+package frc.robot.util;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import edu.wpi.first.networktables.NetworkTableEntry;
+import edu.wpi.first.wpilibj.Timer;
+import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
+
+/**
+ * A batched, change-only publisher for the SmartDashboard.
+ *
+ * Instead of calling SmartDashboard.putNumber() every loop, register an entry
+ * once (usually in a constructor) and call set() on it as often as you like.
+ * Setting a value is just a field write; nothing goes to NetworkTables until
+ * {@link #flush()} runs, and even then only values that actually changed since
+ * the last publish are written.
+ *
+ * {@link #flush()} should be called once per loop (the end of robotPeriodic is
+ * a good spot). It only does real work every {@link #DEFAULT_PERIOD} seconds,
+ * which matches how often NetworkTables sends updates over the network anyway.
+ */
+public class Dashboard {
+
+    /** How often (in seconds) dirty values are published by default */
+    public static final double DEFAULT_PERIOD = 0.1;
+
+    private static final List<Entry> ALL_ENTRIES = new ArrayList<>();
+    private static final Map<String, Entry> ENTRIES_BY_KEY = new HashMap<>();
+
+    private static double period = DEFAULT_PERIOD;
+    private static double nextFlush = 0.0;
+
+    /**
+     * Base class for all the entry types; takes care of looking up the
+     * NetworkTables entry once and remembering whether there's anything
+     * new to publish.
+     */
+    public static abstract class Entry {
+
+        private final String key;
+        private final NetworkTableEntry entry;
+        protected boolean dirty;
+
+        private Entry(String key) {
+            this.key = key;
+            this.entry = SmartDashboard.getEntry(key);
+            this.dirty = true;
+        }
+
+        public String getKey() {
+            return key;
+        }
+
+        protected NetworkTableEntry getEntry() {
+            return entry;
+        }
+
+        /** Writes the current value to NetworkTables */
+        protected abstract void publish();
+    }
+
+    public static class NumberEntry extends Entry {
+
+        private double value;
+        private double published = Double.NaN;
+
+        private NumberEntry(String key) {
+            super(key);
+        }
+
+        public void set(double newValue) {
+            value = newValue;
+            dirty = Double.doubleToLongBits(value) != Double.doubleToLongBits(published);
+        }
+
+        public double get() {
+            return value;
+        }
+
+        protected void publish() {
+            getEntry().setDouble(value);
+            published = value;
+        }
+    }
+
+    public static class BooleanEntry extends Entry {
+
+        private static final int NEVER_PUBLISHED = -1;
+
+        private boolean value;
+        private int published = NEVER_PUBLISHED;
+
+        private BooleanEntry(String key) {
+            super(key);
+        }
+
+        public void set(boolean newValue) {
+            value = newValue;
+            dirty = (value ? 1 : 0) != published;
+        }
+
+        public boolean get() {
+            return value;
+        }
+
+        protected void publish() {
+            getEntry().setBoolean(value);
+            published = value ? 1 : 0;
+        }
+    }
+
+    public static class StringEntry extends Entry {
+
+        private String value = "";
+        private String published;
+
+        private StringEntry(String key) {
+            super(key);
+        }
+
+        public void set(String newValue) {
+            value = newValue == null ? "" : newValue;
+            dirty = !value.equals(published);
+        }
+
+        public String get() {
+            return value;
+        }
+
+        protected void publish() {
+            getEntry().setString(value);
+            published = value;
+        }
+    }
+
+    public static NumberEntry number(String key) {
+        return register(key, NumberEntry.class);
+    }
+
+    public static BooleanEntry bool(String key) {
+        return register(key, BooleanEntry.class);
+    }
+
+    public static StringEntry string(String key) {
+        return register(key, StringEntry.class);
+    }
+
+    /**
+     * Changes how often (in seconds) dirty values get published. Zero means
+     * "every time flush() is called".
+     */
+    public static void setPeriod(double seconds) {
+        period = seconds;
+        nextFlush = 0.0;
+    }
+
+    /**
+     * Publishes every entry that changed since the last publish, if it's
+     * been at least one period since the last time we did so. Call this
+     * once per loop.
+     */
+    public static void flush() {
+        double now = Timer.getFPGATimestamp();
+        if (now < nextFlush) {
+            return;
+        }
+        nextFlush = now + period;
+        for (int i=0; i<ALL_ENTRIES.size(); i++) {
+            Entry entry = ALL_ENTRIES.get(i);
+            if (entry.dirty) {
+                entry.publish();
+                entry.dirty = false;
+            }
+        }
+    }
+
+    /**
+     * Registering the same key twice hands back the same entry, so it's
+     * safe for more than one piece of code to publish a value.
+     */
+    private static <T extends Entry> T register(String key, Class<T> type) {
+        Entry existing = ENTRIES_BY_KEY.get(key);
+        if (existing != null) {
+            if (!type.isInstance(existing)) {
+                throw new IllegalArgumentException("dashboard key "+key+" is already registered as a "+existing.getClass().getSimpleName());
+            }
+            return type.cast(existing);
+        }
+        Entry entry;
+        if (type == NumberEntry.class) {
+            entry = new NumberEntry(key);
+        } else if (type == BooleanEntry.class) {
+            entry = new BooleanEntry(key);
+        } else {
+            entry = new StringEntry(key);
+        }
+        ALL_ENTRIES.add(entry);
+        ENTRIES_BY_KEY.put(key, entry);
+        return type.cast(entry);
+    }
+}
@@ -0,0 +1,235 @@
+package frc.robot.util;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.BooleanSupplier;
+import java.util.function.DoubleSupplier;
+
+import edu.wpi.first.wpilibj.Filesystem;
+import edu.wpi.first.wpilibj.RobotBase;
+import edu.wpi.first.wpilibj.RobotController;
+
+/**
+ * A "black box" for the robot: every time {@link #sample()} is called, the current
+ * value of every registered channel gets written as a fixed-width binary record
+ * into a memory-mapped ring file.
+ *
+ * Writing a record is just a handful of stores into memory - the operating system
+ * takes care of getting the pages onto disk, which also means the data is still
+ * there if our code crashes. When the recorder starts up, the file from the previous
+ * run is moved aside (to flight-1.rec, flight-2.rec, ...) so a crash-and-restart
+ * doesn't overwrite the evidence.
+ *
+ * File layout (big endian):
+ *  - header: magic, version, header size, record size, capacity, channel count
+ *    (all ints), records written (long), then each channel name (UTF-8, with a
+ *    short length in front), padded out to a multiple of 8 bytes
+ *  - records: FPGA timestamp in microseconds (long) followed by one float per channel
+ *
+ * Run this class's main() on a desktop to turn a file into CSV.
+ */
+public class FlightRecorder {
+
+    public static final String FILE_NAME = "flight.rec";
+    public static final String ROBOT_DIRECTORY = "/home/lvuser";
+
+    /** Number of records kept in the ring - 10 minutes at 50 loops per second */
+    public static final int DEFAULT_CAPACITY = 30000;
+
+    /** Number of old recordings to keep around */
+    public static final int KEEP_PREVIOUS = 3;
+
+    private static final int MAGIC = 0x46524543; // "FREC"
+    private static final int VERSION = 1;
+    private static final int WRITTEN_OFFSET = 24;
+
+    private final File file;
+    private final int capacity;
+    private final List<String> names;
+    private final List<DoubleSupplier> sources;
+    private DoubleSupplier[] channels;
+    private MappedByteBuffer buffer;
+    private int headerSize;
+    private int recordSize;
+    private long written;
+
+    public FlightRecorder() {
+        this(new File(RobotBase.isReal() ? new File(ROBOT_DIRECTORY) : Filesystem.getOperatingDirectory(), FILE_NAME), DEFAULT_CAPACITY);
+    }
+
+    public FlightRecorder(File file, int capacity) {
+        this.file = file;
+        this.capacity = capacity;
+        this.names = new ArrayList<>();
+        this.sources = new ArrayList<>();
+    }
+
+    /**
+     * Adds a channel to the recording. All channels have to be added before
+     * calling {@link #start()}.
+     */
+    public void addChannel(String name, DoubleSupplier source) {
+        if (channels != null) {
+            throw new IllegalStateException("can't add channel "+name+" after the recorder has started");
+        }
+        names.add(name);
+        sources.add(source);
+    }
+
+    /**
+     * Records a boolean as 1.0 (true) or 0.0 (false)
+     */
+    public void addChannel(String name, BooleanSupplier source) {
+        addChannel(name, () -> source.getAsBoolean() ? 1.0 : 0.0);
+    }
+
+    /**
+     * Moves the previous recording aside, creates the ring file and writes
+     * the header. If anything goes wrong we log it and sample() does nothing.
+     */
+    public void start() {
+        channels = sources.toArray(new DoubleSupplier[0]);
+        try {
+            rotatePreviousFiles();
+
+            byte[][] encodedNames = new byte[names.size()][];
+            int size = WRITTEN_OFFSET + 8;
+            for (int i=0; i<encodedNames.length; i++) {
+                encodedNames[i] = names.get(i).getBytes(StandardCharsets.UTF_8);
+                size += 2 + encodedNames[i].length;
+            }
+            headerSize = (size + 7) & ~7;
+            recordSize = 8 + 4 * channels.length;
+
+            long fileSize = headerSize + (long) recordSize * capacity;
+            try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+                raf.setLength(fileSize);
+                buffer = raf.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, fileSize);
+            }
+
+            buffer.putInt(0, MAGIC);
+            buffer.putInt(4, VERSION);
+            buffer.putInt(8, headerSize);
+            buffer.putInt(12, recordSize);
+            buffer.putInt(16, capacity);
+            buffer.putInt(20, channels.length);
+            buffer.putLong(WRITTEN_OFFSET, 0L);
+            int offset = WRITTEN_OFFSET + 8;
+            for (byte [] name : encodedNames) {
+                buffer.putShort(offset, (short) name.length);
+                offset += 2;
+                for (int i=0; i<name.length; i++) {
+                    buffer.put(offset++, name[i]);
+                }
+            }
+            written = 0L;
+            Logger.log("flight recorder: recording ", channels.length, " channels to ", file);
+        } catch (IOException e) {
+            Logger.log("flight recorder: unable to start (", e, ")");
+            buffer = null;
+        }
+    }
+
+    /**
+     * Writes one record with the current value of every channel. Call this
+     * once per loop.
+     */
+    public void sample() {
+        if (buffer == null) {
+            return;
+        }
+        int offset = headerSize + (int) (written % capacity) * recordSize;
+        buffer.putLong(offset, RobotController.getFPGATime());
+        offset += 8;
+        for (int i=0; i<channels.length; i++) {
+            buffer.putFloat(offset, (float) channels[i].getAsDouble());
+            offset += 4;
+        }
+        written++;
+        buffer.putLong(WRITTEN_OFFSET, written);
+    }
+
+    /**
+     * Asks the operating system to write everything out to disk now. This
+     * can take a while, so only do it when the robot is disabled.
+     */
+    public void sync() {
+        if (buffer != null) {
+            buffer.force();
+        }
+    }
+
+    private void rotatePreviousFiles() {
+        String base = file.getName().replace(".rec", "");
+        File oldest = new File(file.getParentFile(), base+"-"+KEEP_PREVIOUS+".rec");
+        oldest.delete();
+        for (int i=KEEP_PREVIOUS-1; i>=1; i--) {
+            File from = new File(file.getParentFile(), base+"-"+i+".rec");
+            from.renameTo(new File(file.getParentFile(), base+"-"+(i+1)+".rec"));
+        }
+        if (file.exists()) {
+            file.renameTo(new File(file.getParentFile(), base+"-1.rec"));
+        }
+    }
+
+    /**
+     * Prints a recording as CSV, oldest record first.
+     */
+    public static void export(File in, PrintStream out) throws IOException {
+        byte [] bytes = Files.readAllBytes(in.toPath());
+        ByteBuffer buf = ByteBuffer.wrap(bytes);
+        if (buf.getInt(0) != MAGIC) {
+            throw new IOException(in+" is not a flight recording");
+        }
+        int headerSize = buf.getInt(8);
+        int recordSize = buf.getInt(12);
+        int capacity = buf.getInt(16);
+        int channelCount = buf.getInt(20);
+        long written = buf.getLong(WRITTEN_OFFSET);
+
+        StringBuilder line = new StringBuilder("timestamp");
+        int offset = WRITTEN_OFFSET + 8;
+        for (int i=0; i<channelCount; i++) {
+            int length = buf.getShort(offset);
+            line.append(',').append(new String(bytes, offset + 2, length, StandardCharsets.UTF_8));
+            offset += 2 + length;
+        }
+        out.println(line);
+
+        long first = Math.max(0, written - capacity);
+        for (long r=first; r<written; r++) {
+            int pos = headerSize + (int) (r % capacity) * recordSize;
+            line.setLength(0);
+            line.append(buf.getLong(pos) / 1e6);
+            pos += 8;
+            for (int i=0; i<channelCount; i++) {
+                line.append(',').append(buf.getFloat(pos));
+                pos += 4;
+            }
+            out.println(line);
+        }
+    }
+
+    public static void main(String... args) throws IOException {
+        if (args.length < 1) {
+            System.err.println("usage: FlightRecorder <flight.rec> [output.csv]");
+            return;
+        }
+        if (args.length > 1) {
+            try (PrintStream out = new PrintStream(args[1])) {
+                export(new File(args[0]), out);
+            }
+        } else {
+            export(new File(args[0]), System.out);
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package frc.robot.util;
+
+/**
+ * A fixed-bucket histogram of durations, for answering questions like
+ * "what's the typical (p50) and worst-case-ish (p99) time this takes?"
+ * without keeping every sample.
+ *
+ * Bucket boundaries grow by about 10% each step, from 1 microsecond up to
+ * about 1 second, so a percentile is always within 10% of the real value.
+ * Recording a sample never allocates.
+ */
+public class LatencyHistogram {
+
+    private static final double GROWTH = 1.1;
+    private static final long[] BOUNDS;
+
+    static {
+        // BOUNDS[i] is the (exclusive) upper limit of bucket i, in nanoseconds
+        int count = (int) Math.ceil(Math.log(1e9 / 1e3) / Math.log(GROWTH)) + 1;
+        BOUNDS = new long[count];
+        double bound = 1e3;
+        for (int i=0; i<count; i++) {
+            BOUNDS[i] = (long) bound;
+            bound *= GROWTH;
+        }
+    }
+
+    // one extra bucket on the end for anything over a second
+    private final long[] counts = new long[BOUNDS.length + 1];
+    private long total;
+    private long max;
+    private long sum;
+
+    public void record(long nanos) {
+        counts[bucketFor(nanos)]++;
+        total++;
+        sum += nanos;
+        if (nanos > max) {
+            max = nanos;
+        }
+    }
+
+    public long getCount() {
+        return total;
+    }
+
+    public long getMaxNanos() {
+        return max;
+    }
+
+    public double getMeanNanos() {
+        return total == 0 ? 0.0 : (double) sum / total;
+    }
+
+    /**
+     * @param fraction e.g. 0.5 for the median, 0.99 for p99
+     * @return the upper bound of the bucket holding that percentile (never more
+     *  than the largest sample), or 0 if nothing's been recorded
+     */
+    public long getPercentileNanos(double fraction) {
+        if (total == 0) {
+            return 0L;
+        }
+        long rank = (long) Math.ceil(fraction * total);
+        long seen = 0;
+        for (int i=0; i<counts.length; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return i < BOUNDS.length ? Math.min(BOUNDS[i], max) : max;
+            }
+        }
+        return max;
+    }
+
+    public void reset() {
+        for (int i=0; i<counts.length; i++) {
+            counts[i] = 0L;
+        }
+        total = 0L;
+        sum = 0L;
+        max = 0L;
+    }
+
+    private static int bucketFor(long nanos) {
+        int low = 0;
+        int high = BOUNDS.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (nanos < BOUNDS[mid]) {
+                high = mid;
+            } else {
+                low = mid + 1;
+            }
+        }
+        return low;
+    }
+}
@@ -1,15 +1,63 @@
 package frc.robot.util;
 
 import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
 
 /**
  * This is a logger that will remember the last thing it printed out, and will
  * suppress repeated statements to avoid flooding the log with repeat statements.
+ *
+ * Printing to the console on the roboRIO can block for milliseconds, so log()
+ * doesn't actually print anything. It copies its arguments into a preallocated
+ * slot in a fixed-size ring buffer and returns; a background thread does the
+ * formatting, repeat suppression and printing. If the buffer is ever full, the
+ * message is dropped (and counted) rather than making the robot loop wait.
+ *
+ * Because formatting happens later on another thread, don't pass in objects
+ * that you're about to change - strings, numbers and booleans are all fine.
  */
 public class Logger {
 
     public static final int SUPPRESS_REPEATS = 100;
-    
+
+    /** Number of slots in the ring buffer (must be a power of two) */
+    public static final int CAPACITY = 1024;
+
+    /** Maximum number of arguments stored per record; extras get folded into the last one */
+    public static final int MAX_ARGS = 8;
+
+    /** How long the writer thread sleeps when there's nothing to print */
+    private static final long IDLE_NANOS = 5_000_000L;
+
+    private static final int MASK = CAPACITY - 1;
+    private static final Object[][] RECORDS = new Object[CAPACITY][MAX_ARGS];
+    private static final int[] RECORD_SIZES = new int[CAPACITY];
+
+    // each slot's sequence number tells producers and the writer whose turn it is
+    // to use the slot; see http://www.1024cores.net/home/lock-free-algorithms/queues/bounded-mpmc-queue
+    private static final AtomicLongArray SEQUENCES = new AtomicLongArray(CAPACITY);
+    private static final AtomicLong TAIL = new AtomicLong();
+    private static final AtomicLong DROPPED = new AtomicLong();
+    private static volatile long head;
+
+    // only touched by the writer thread
+    private static final StringBuilder current = new StringBuilder();
+    private static String lastMessage = null;
+    private static int lastRepeats = 0;
+    private static long reportedDropped = 0;
+
+    static {
+        for (int i=0; i<CAPACITY; i++) {
+            SEQUENCES.set(i, i);
+        }
+        Thread writer = new Thread(Logger::runWriter, "Logger");
+        writer.setDaemon(true);
+        writer.setPriority(Thread.MIN_PRIORITY);
+        writer.start();
+    }
+
     public static String makeMessage(Object... args) {
         StringBuilder builder = new StringBuilder();
         for (int i=0; i<args.length; i++) {
@@ -18,32 +66,129 @@ public class Logger {
         return builder.toString();
     }
 
-    private static String lastMessage = null;
-    private static int lastRepeats = 0;
-
+    /**
+     * Queues a message to be printed. Never blocks; safe to call from any
+     * thread (producers claim a slot with a single compare-and-set, which
+     * is uncontended when only the robot thread is logging).
+     */
     public static void log(Object... args) {
+        long pos;
+        int index;
+        while (true) {
+            pos = TAIL.get();
+            index = (int) (pos & MASK);
+            long diff = SEQUENCES.get(index) - pos;
+            if (diff == 0) {
+                if (TAIL.compareAndSet(pos, pos + 1)) {
+                    break;
+                }
+            } else if (diff < 0) {
+                DROPPED.incrementAndGet();
+                return;
+            }
+        }
+
+        Object[] record = RECORDS[index];
+        int count = args.length;
+        if (count > MAX_ARGS) {
+            System.arraycopy(args, 0, record, 0, MAX_ARGS - 1);
+            Object[] rest = new Object[count - MAX_ARGS + 1];
+            System.arraycopy(args, MAX_ARGS - 1, rest, 0, rest.length);
+            record[MAX_ARGS - 1] = makeMessage(rest);
+            count = MAX_ARGS;
+        } else {
+            System.arraycopy(args, 0, record, 0, count);
+        }
+        RECORD_SIZES[index] = count;
+        SEQUENCES.lazySet(index, pos + 1);
+    }
+
+    /**
+     * @return how many messages have been thrown away because the buffer was full
+     */
+    public static long getDroppedCount() {
+        return DROPPED.get();
+    }
+
+    /**
+     * Waits (up to the supplied number of seconds) for everything logged so far
+     * to be printed. Handy before exiting a program; don't call it from the
+     * robot loop.
+     */
+    public static void flush(double timeoutSeconds) {
+        long target = TAIL.get();
+        long deadline = System.nanoTime() + (long) (timeoutSeconds * 1e9);
+        while (head < target && System.nanoTime() < deadline) {
+            LockSupport.parkNanos(IDLE_NANOS / 5);
+        }
+    }
+
+    private static void runWriter() {
+        while (true) {
+            if (!drain()) {
+                LockSupport.parkNanos(IDLE_NANOS);
+            }
+        }
+    }
 
-        String message = makeMessage(args);
+    /**
+     * Prints everything that's currently in the buffer.
+     *
+     * @return true if anything was printed
+     */
+    private static boolean drain() {
+        boolean printed = false;
+        while (true) {
+            long pos = head;
+            int index = (int) (pos & MASK);
+            if (SEQUENCES.get(index) != pos + 1) {
+                break;
+            }
+            Object[] record = RECORDS[index];
+            int count = RECORD_SIZES[index];
+            current.setLength(0);
+            for (int i=0; i<count; i++) {
+                current.append(Objects.toString(record[i]));
+                record[i] = null;
+            }
+            SEQUENCES.lazySet(index, pos + CAPACITY);
+            head = pos + 1;
+            print();
+            printed = true;
+        }
 
+        long dropped = DROPPED.get();
+        if (dropped != reportedDropped) {
+            System.err.println("logger: dropped "+(dropped - reportedDropped)+" messages (buffer full)");
+            reportedDropped = dropped;
+            printed = true;
+        }
+        return printed;
+    }
+
+    /**
+     * Prints the message in {@link #current}, suppressing repeats
+     */
+    private static void print() {
         if (lastMessage == null) {
-            lastMessage = message;
+            lastMessage = current.toString();
             lastRepeats = 0;
             System.err.println(lastMessage);
         }
-        else if (lastMessage.equals(message)) {
+        else if (lastMessage.contentEquals(current)) {
             lastRepeats += 1;
             if (lastRepeats % SUPPRESS_REPEATS == (SUPPRESS_REPEATS - 1)) {
-                System.err.println(message+" ("+lastRepeats+" repeats)");
+                System.err.println(lastMessage+" ("+lastRepeats+" repeats)");
                 lastRepeats = 0;
             }
         }
         else {
             if (lastRepeats > 0) {
-                System.err.println(message+" ("+lastRepeats+" repeats)");
+                System.err.println(lastMessage+" ("+lastRepeats+" repeats)");
             }
-            lastMessage = message;
+            lastMessage = current.toString();
             lastRepeats = 0;
-            System.err.println(message);
+            System.err.println(lastMessage);
        }
     }
 }
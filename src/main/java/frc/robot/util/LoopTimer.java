@@ -0,0 +1,229 @@
+package frc.robot.util;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.sun.management.ThreadMXBean;
+
+/**
+ * Times a section of the robot loop (e.g. one subsystem's periodic method) and
+ * keeps a {@link LatencyHistogram} of how long it took. Wrap the code like this:
+ *
+ *   intakeTimer.start();
+ *   intake.teleopPeriodic();
+ *   intakeTimer.stop();
+ *
+ * Every {@link #SUMMARY_PERIOD} seconds, {@link #publishSummary()} puts the p50,
+ * p99 and max (in milliseconds) of every timer on the dashboard and starts a
+ * fresh window, so the numbers always reflect recent loops.
+ *
+ * For hunting down garbage (and the GC pauses that come with it), call
+ * {@link #trackAllocations(long)} and every timer also counts how many bytes its
+ * thread allocated between start() and stop(). The summary then adds the average
+ * and max bytes per run (per loop, for most timers), and logs any timer whose
+ * worst run goes over the budget, so a change that starts allocating in the loop
+ * shows up right away. A timer nested inside another one (e.g. a command inside
+ * "Scheduler") counts towards both.
+ */
+public class LoopTimer {
+
+    /** How often (in seconds) the summary gets published */
+    public static final double SUMMARY_PERIOD = 1.0;
+
+    private static final double NANOS_PER_MILLI = 1e6;
+    private static final List<LoopTimer> ALL_TIMERS = new ArrayList<>();
+    private static long nextSummary = 0L;
+
+    // only set while we're tracking allocations
+    private static ThreadMXBean threads;
+    private static long probeBytes;
+    private static long allocationBudget;
+    private static Dashboard.NumberEntry overBudgetEntry;
+
+    private final String name;
+    private final LatencyHistogram window;
+    private final LatencyHistogram match;
+    private final Dashboard.NumberEntry p50Entry;
+    private final Dashboard.NumberEntry p99Entry;
+    private final Dashboard.NumberEntry maxEntry;
+    private long started;
+    private long allocatedAtStart;
+    private long allocatedTotal;
+    private long allocatedMax;
+    private long allocatedCount;
+    private long allocatedMatchTotal;
+    private long allocatedMatchMax;
+    private long allocatedMatchCount;
+    private long worstFlagged;
+    private Dashboard.NumberEntry allocatedAvgEntry;
+    private Dashboard.NumberEntry allocatedMaxEntry;
+
+    private LoopTimer(String name) {
+        this.name = name;
+        this.window = new LatencyHistogram();
+        this.match = new LatencyHistogram();
+        this.p50Entry = Dashboard.number("Timing/"+name+" p50 ms");
+        this.p99Entry = Dashboard.number("Timing/"+name+" p99 ms");
+        this.maxEntry = Dashboard.number("Timing/"+name+" max ms");
+    }
+
+    public static LoopTimer named(String name) {
+        for (LoopTimer timer : ALL_TIMERS) {
+            if (timer.name.equals(name)) {
+                return timer;
+            }
+        }
+        LoopTimer timer = new LoopTimer(name);
+        ALL_TIMERS.add(timer);
+        return timer;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Turns on allocation tracking for every timer (this is a diagnostic mode:
+     * reading the counter costs a little time on every start() and stop()).
+     *
+     * @param budgetBytes any timer that allocates more than this in one run gets logged
+     */
+    public static void trackAllocations(long budgetBytes) {
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (!(bean instanceof ThreadMXBean) || !((ThreadMXBean) bean).isThreadAllocatedMemorySupported()) {
+            Logger.log("timing: this JVM can't count allocations, not tracking them");
+            return;
+        }
+        ThreadMXBean sunBean = (ThreadMXBean) bean;
+        sunBean.setThreadAllocatedMemoryEnabled(true);
+
+        // on Java 11, reading the counter allocates a few bytes itself; find out
+        // how many (the smallest of a few tries, the first ones load classes) so
+        // we can take them back out
+        long id = Thread.currentThread().getId();
+        long smallest = Long.MAX_VALUE;
+        for (int i=0; i<20; i++) {
+            long before = sunBean.getThreadAllocatedBytes(id);
+            long after = sunBean.getThreadAllocatedBytes(id);
+            smallest = Math.min(smallest, after - before);
+        }
+        probeBytes = smallest;
+        allocationBudget = budgetBytes;
+        overBudgetEntry = Dashboard.number("Allocations/Over Budget");
+        threads = sunBean;
+        Logger.log("timing: tracking allocations, budget is ", budgetBytes, " bytes per run (probe costs ", probeBytes, ")");
+    }
+
+    public void start() {
+        if (threads != null) {
+            allocatedAtStart = threads.getThreadAllocatedBytes(Thread.currentThread().getId());
+        }
+        started = System.nanoTime();
+    }
+
+    public void stop() {
+        long nanos = System.nanoTime() - started;
+        if (threads != null) {
+            long allocated = threads.getThreadAllocatedBytes(Thread.currentThread().getId());
+            recordAllocated(Math.max(0L, allocated - allocatedAtStart - probeBytes));
+        }
+        record(nanos);
+    }
+
+    private void recordAllocated(long bytes) {
+        allocatedTotal += bytes;
+        allocatedMax = Math.max(allocatedMax, bytes);
+        allocatedCount++;
+        allocatedMatchTotal += bytes;
+        allocatedMatchMax = Math.max(allocatedMatchMax, bytes);
+        allocatedMatchCount++;
+    }
+
+    public void record(long nanos) {
+        window.record(nanos);
+        match.record(nanos);
+    }
+
+    /**
+     * Call once per loop; only does anything every {@link #SUMMARY_PERIOD} seconds.
+     */
+    public static void publishSummary() {
+        long now = System.nanoTime();
+        if (now < nextSummary) {
+            return;
+        }
+        nextSummary = now + (long) (SUMMARY_PERIOD * 1e9);
+        for (int i=0; i<ALL_TIMERS.size(); i++) {
+            LoopTimer timer = ALL_TIMERS.get(i);
+            timer.p50Entry.set(timer.window.getPercentileNanos(0.50) / NANOS_PER_MILLI);
+            timer.p99Entry.set(timer.window.getPercentileNanos(0.99) / NANOS_PER_MILLI);
+            timer.maxEntry.set(timer.window.getMaxNanos() / NANOS_PER_MILLI);
+            timer.window.reset();
+        }
+        if (threads != null) {
+            publishAllocations();
+        }
+    }
+
+    /**
+     * The allocation half of the summary. Each timer gets logged the first time
+     * it goes over the budget, and again whenever it does worse than that (so
+     * there's no log message every second for the same thing).
+     */
+    private static void publishAllocations() {
+        int overBudget = 0;
+        for (int i=0; i<ALL_TIMERS.size(); i++) {
+            LoopTimer timer = ALL_TIMERS.get(i);
+            if (timer.allocatedCount == 0) {
+                continue;
+            }
+            if (timer.allocatedAvgEntry == null) {
+                timer.allocatedAvgEntry = Dashboard.number("Allocations/"+timer.name+" avg bytes");
+                timer.allocatedMaxEntry = Dashboard.number("Allocations/"+timer.name+" max bytes");
+            }
+            timer.allocatedAvgEntry.set((double) timer.allocatedTotal / timer.allocatedCount);
+            timer.allocatedMaxEntry.set(timer.allocatedMax);
+            if (timer.allocatedMax > allocationBudget) {
+                overBudget++;
+                if (timer.allocatedMax > timer.worstFlagged) {
+                    timer.worstFlagged = timer.allocatedMax;
+                    Logger.log("timing: ", timer.name, " allocated ", timer.allocatedMax,
+                        " bytes in one run (budget is ", allocationBudget, ")");
+                }
+            }
+            timer.allocatedTotal = 0L;
+            timer.allocatedMax = 0L;
+            timer.allocatedCount = 0L;
+        }
+        overBudgetEntry.set(overBudget);
+    }
+
+    /**
+     * Logs the numbers for everything since the last call (e.g. a whole match)
+     * and starts over. This formats strings, so only call it while disabled.
+     */
+    public static void logMatchSummary() {
+        for (LoopTimer timer : ALL_TIMERS) {
+            LatencyHistogram h = timer.match;
+            if (h.getCount() == 0) {
+                continue;
+            }
+            Logger.log("timing: ", timer.name,
+                " n=", h.getCount(),
+                " p50=", MathUtil.round(h.getPercentileNanos(0.50) / NANOS_PER_MILLI, 3),
+                "ms p99=", MathUtil.round(h.getPercentileNanos(0.99) / NANOS_PER_MILLI, 3),
+                "ms max=", MathUtil.round(h.getMaxNanos() / NANOS_PER_MILLI, 3), "ms");
+            h.reset();
+            if (timer.allocatedMatchCount > 0) {
+                Logger.log("timing: ", timer.name,
+                    " avg=", timer.allocatedMatchTotal / timer.allocatedMatchCount,
+                    "B max=", timer.allocatedMatchMax, "B",
+                    timer.allocatedMatchMax > allocationBudget ? " (over budget)" : "");
+                timer.allocatedMatchTotal = 0L;
+                timer.allocatedMatchMax = 0L;
+                timer.allocatedMatchCount = 0L;
+            }
+        }
+    }
+}
@@ -0,0 +1,232 @@
+package frc.robot.util;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import com.revrobotics.SparkMaxPIDController;
+
+import edu.wpi.first.networktables.EntryListenerFlags;
+import edu.wpi.first.networktables.NetworkTableEntry;
+import edu.wpi.first.networktables.NetworkTableValue;
+import edu.wpi.first.wpilibj.Timer;
+import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
+
+/**
+ * Live PID tuning from the SmartDashboard, for any number of Spark Max PID
+ * controllers that should all have the same gains (like the four swerve steering
+ * motors).
+ *
+ * Instead of reading every gain off the dashboard every loop, this listens for
+ * NetworkTables changes. The listener runs on the NetworkTables thread and just
+ * stashes the new value and marks it changed; {@link #applyPending()} (called from
+ * the robot loop) sends only the gains that changed to every bound controller. When
+ * nobody's touching the dashboard, applyPending() is a single atomic read.
+ *
+ * Every set of gains that gets applied is kept as a numbered {@link Revision}, so
+ * it's easy to see what was tried (it's logged too) and to go back to a good one.
+ */
+public class PIDTuner {
+
+    /** The dashboard keys (after the prefix) for each gain, in index order */
+    public static final String[] KEYS = {
+        "P Gain", "I Gain", "D Gain", "I Zone", "Feed Forward", "Max Output", "Min Output"
+    };
+
+    private static final int P = 0;
+    private static final int I = 1;
+    private static final int D = 2;
+    private static final int IZONE = 3;
+    private static final int FF = 4;
+    private static final int MAX = 5;
+    private static final int MIN = 6;
+    private static final int ALL = (1 << KEYS.length) - 1;
+
+    /**
+     * One set of gains that got applied, and when
+     */
+    public static class Revision {
+
+        private final int version;
+        private final double timestamp;
+        private final PIDConstant constants;
+
+        private Revision(int version, double timestamp, PIDConstant constants) {
+            this.version = version;
+            this.timestamp = timestamp;
+            this.constants = constants;
+        }
+
+        public int getVersion() {
+            return version;
+        }
+
+        /** @return FPGA time (in seconds) when these gains were applied */
+        public double getTimestamp() {
+            return timestamp;
+        }
+
+        public PIDConstant getConstants() {
+            return constants;
+        }
+
+        public String toString() {
+            return "v"+version+" "+constants;
+        }
+    }
+
+    private final String name;
+    private final NetworkTableEntry[] entries;
+    private final List<SparkMaxPIDController> controllers;
+    private final List<Revision> history;
+
+    // main loop only
+    private final double[] gains;
+
+    // written by the NetworkTables listener thread
+    private final AtomicLongArray pending;
+    private final AtomicInteger changed;
+
+    /**
+     * @param name what to call these gains in the log
+     * @param keyPrefix put in front of each of the {@link #KEYS} (can be empty)
+     * @param initial the gains the controllers start with
+     */
+    public PIDTuner(String name, String keyPrefix, PIDConstant initial) {
+        this.name = name;
+        this.entries = new NetworkTableEntry[KEYS.length];
+        this.controllers = new ArrayList<>();
+        this.history = new ArrayList<>();
+        this.gains = new double[KEYS.length];
+        this.pending = new AtomicLongArray(KEYS.length);
+        this.changed = new AtomicInteger();
+
+        gains[P] = initial.getP();
+        gains[I] = initial.getI();
+        gains[D] = initial.getD();
+        gains[IZONE] = initial.getIZone();
+        gains[FF] = initial.getFeedForward();
+        gains[MAX] = initial.getMaxOutput();
+        gains[MIN] = initial.getMinOutput();
+        history.add(new Revision(0, Timer.getFPGATimestamp(), initial));
+
+        for (int i=0; i<KEYS.length; i++) {
+            entries[i] = SmartDashboard.getEntry(keyPrefix + KEYS[i]);
+            entries[i].setDouble(gains[i]);
+            final int index = i;
+            // no kLocal, so our own publish() doesn't come back around
+            entries[i].addListener(notification -> onChange(index, notification.value),
+                EntryListenerFlags.kNew | EntryListenerFlags.kUpdate);
+        }
+    }
+
+    /**
+     * Adds a controller to the ones that get tuned. It should already have the
+     * initial gains; if they've been changed since, it gets the current ones.
+     */
+    public void bind(SparkMaxPIDController controller) {
+        controllers.add(controller);
+        if (history.size() > 1) {
+            getCurrent().configPID(controller);
+        }
+    }
+
+    /**
+     * Puts the current gains back on the dashboard (e.g. if someone typed in
+     * something and then thought better of it)
+     */
+    public void publish() {
+        for (int i=0; i<KEYS.length; i++) {
+            entries[i].setDouble(gains[i]);
+        }
+    }
+
+    /**
+     * Sends any gains that were changed on the dashboard since the last call to
+     * every bound controller. Call this once per loop.
+     *
+     * @return true if anything changed
+     */
+    public boolean applyPending() {
+        int mask = changed.getAndSet(0);
+        if (mask == 0) {
+            return false;
+        }
+
+        for (int i=0; i<KEYS.length; i++) {
+            int bit = 1 << i;
+            if ((mask & bit) != 0) {
+                double value = Double.longBitsToDouble(pending.get(i));
+                if (value == gains[i]) {
+                    mask &= ~bit;
+                } else {
+                    gains[i] = value;
+                }
+            }
+        }
+        if (mask == 0) {
+            return false;
+        }
+
+        for (int c=0; c<controllers.size(); c++) {
+            SparkMaxPIDController controller = controllers.get(c);
+            if ((mask & (1 << P)) != 0) { controller.setP(gains[P]); }
+            if ((mask & (1 << I)) != 0) { controller.setI(gains[I]); }
+            if ((mask & (1 << D)) != 0) { controller.setD(gains[D]); }
+            if ((mask & (1 << IZONE)) != 0) { controller.setIZone(gains[IZONE]); }
+            if ((mask & (1 << FF)) != 0) { controller.setFF(gains[FF]); }
+            if ((mask & ((1 << MAX) | (1 << MIN))) != 0) { controller.setOutputRange(gains[MIN], gains[MAX]); }
+        }
+
+        Revision revision = new Revision(history.size(), Timer.getFPGATimestamp(),
+            new PIDConstant(gains[P], gains[I], gains[D], gains[FF], gains[IZONE], gains[MIN], gains[MAX]));
+        history.add(revision);
+        Logger.log("pid tuner: ", name, " ", revision.toString(), " on ", controllers.size(), " controllers");
+        return true;
+    }
+
+    /**
+     * Goes back to an earlier set of gains (as a new revision). Takes effect on
+     * the next {@link #applyPending()}.
+     */
+    public void revert(int version) {
+        PIDConstant constants = history.get(version).getConstants();
+        double[] values = {
+            constants.getP(), constants.getI(), constants.getD(), constants.getIZone(),
+            constants.getFeedForward(), constants.getMaxOutput(), constants.getMinOutput()
+        };
+        for (int i=0; i<KEYS.length; i++) {
+            pending.set(i, Double.doubleToLongBits(values[i]));
+            entries[i].setDouble(values[i]);
+        }
+        changed.accumulateAndGet(ALL, (a, b) -> a | b);
+    }
+
+    /** @return the gains the controllers have now */
+    public PIDConstant getCurrent() {
+        return history.get(history.size() - 1).getConstants();
+    }
+
+    /** @return the version number of the current gains (0 is the initial ones) */
+    public int getVersion() {
+        return history.size() - 1;
+    }
+
+    /** @return every set of gains that's been applied, oldest first */
+    public List<Revision> getHistory() {
+        return Collections.unmodifiableList(history);
+    }
+
+    /**
+     * Runs on the NetworkTables listener thread
+     */
+    private void onChange(int index, NetworkTableValue value) {
+        if (value == null || !value.isDouble()) {
+            return;
+        }
+        pending.set(index, Double.doubleToLongBits(value.getDouble()));
+        changed.accumulateAndGet(1 << index, (a, b) -> a | b);
+    }
+}
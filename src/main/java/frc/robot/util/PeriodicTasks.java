@@ -0,0 +1,146 @@
+package frc.robot.util;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import edu.wpi.first.wpilibj.TimedRobot;
+import edu.wpi.first.wpilibj.Timer;
+
+/**
+ * Things that should run on their own schedule instead of once per main loop:
+ * control loops and safety checks that want to run faster than 50Hz, and dashboard
+ * updates that don't need to run that often.
+ *
+ * Subsystems add their tasks when they're constructed, and {@link #start(TimedRobot)}
+ * hands them to TimedRobot.addPeriodic(), so they run on the main thread in between
+ * main loops (nothing needs to be thread safe). Tasks with the same period run
+ * together, in the order they were added, so a task that publishes the dashboard
+ * can go after the ones that fill it in.
+ *
+ * Each task gets a {@link LoopTimer} of its own, and each rate gets one for how
+ * late it ran (compared to one period after the last run), which is how we can
+ * tell whether a slow main loop is holding up the fast tasks.
+ *
+ * In simulations that step the clock by hand (and benchmarks), call
+ * {@link #runDue()} instead of {@link #start(TimedRobot)}.
+ */
+public class PeriodicTasks {
+
+    /** 200Hz: closed loops and limit checks */
+    public static final double FAST = 0.005;
+
+    /** 10Hz: the dashboard */
+    public static final double TELEMETRY = 0.1;
+
+    /** The main loop's period (we schedule in between its runs) */
+    private static final double MAIN_PERIOD = 0.02;
+
+    private static final List<Rate> RATES = new ArrayList<>();
+    private static TimedRobot robot;
+
+    /**
+     * Adds a task. If we've already started, it starts running right away.
+     *
+     * @param period seconds between runs
+     */
+    public static void add(String name, double period, Runnable task) {
+        Rate rate = null;
+        for (int i=0; i<RATES.size(); i++) {
+            if (RATES.get(i).period == period) {
+                rate = RATES.get(i);
+            }
+        }
+        if (rate == null) {
+            rate = new Rate(period);
+            RATES.add(rate);
+            if (robot != null) {
+                rate.schedule(robot);
+            }
+        }
+        rate.names.add(name);
+        rate.tasks.add(task);
+        rate.timers.add(LoopTimer.named(name));
+    }
+
+    /**
+     * Hands every task to the robot's scheduler; call this at the end of robotInit()
+     */
+    public static void start(TimedRobot newRobot) {
+        robot = newRobot;
+        for (int i=0; i<RATES.size(); i++) {
+            Rate rate = RATES.get(i);
+            rate.schedule(robot);
+            Logger.log("periodic tasks: every ", rate.period * 1000.0, "ms: ", rate.names);
+        }
+    }
+
+    /**
+     * Runs every task that's due by now. Only for when TimedRobot's loop isn't
+     * running (e.g. the autonomous simulator, which calls the periodic functions
+     * itself), so nothing runs what {@link #start(TimedRobot)} scheduled.
+     */
+    public static void runDue() {
+        double now = Timer.getFPGATimestamp();
+        for (int i=0; i<RATES.size(); i++) {
+            Rate rate = RATES.get(i);
+            if (now >= rate.nextDue) {
+                rate.run();
+                rate.nextDue = now + rate.period;
+            }
+        }
+    }
+
+    /** @return the shortest period of any task (or the main loop's, if that's shorter) */
+    public static double getFastestPeriod() {
+        double fastest = MAIN_PERIOD;
+        for (int i=0; i<RATES.size(); i++) {
+            fastest = Math.min(fastest, RATES.get(i).period);
+        }
+        return fastest;
+    }
+
+    /**
+     * All the tasks that run at one rate
+     */
+    private static class Rate {
+
+        private final double period;
+        private final List<String> names;
+        private final List<Runnable> tasks;
+        private final List<LoopTimer> timers;
+        private final LoopTimer lateTimer;
+        private long lastRun;
+        private double nextDue;
+
+        private Rate(double period) {
+            this.period = period;
+            this.names = new ArrayList<>();
+            this.tasks = new ArrayList<>();
+            this.timers = new ArrayList<>();
+            this.lateTimer = LoopTimer.named(Math.round(1.0 / period) + "Hz Late");
+        }
+
+        /**
+         * Runs half way between main loops (or half way between our own
+         * runs, if we run more often than that), so we don't land on top
+         * of the main loop every time
+         */
+        private void schedule(TimedRobot robot) {
+            robot.addPeriodic(this::run, period, Math.min(period, MAIN_PERIOD) / 2.0);
+        }
+
+        private void run() {
+            long now = System.nanoTime();
+            if (lastRun != 0L) {
+                lateTimer.record(Math.max(0L, now - lastRun - (long) (period * 1e9)));
+            }
+            lastRun = now;
+            for (int i=0; i<tasks.size(); i++) {
+                LoopTimer timer = timers.get(i);
+                timer.start();
+                tasks.get(i).run();
+                timer.stop();
+            }
+        }
+    }
+}
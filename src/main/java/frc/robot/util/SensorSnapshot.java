@@ -0,0 +1,103 @@
+package frc.robot.util;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.revrobotics.RelativeEncoder;
+
+import edu.wpi.first.wpilibj.DigitalInput;
+
+/**
+ * Reads every sensor exactly once per loop.
+ *
+ * Asking an encoder or a switch for its value is a trip through JNI (and for
+ * Spark Max encoders, the CAN driver), and different parts of the code used to
+ * ask for the same values several times in one loop - sometimes getting different
+ * answers. Instead, sensors get registered here with {@link #track(RelativeEncoder)}
+ * or {@link #track(DigitalInput)}; {@link #refresh()} reads all of them at the top
+ * of the loop and everything else uses the cached values.
+ *
+ * Robots call {@link #refresh()} from loopFunc(), before any of the periodic methods.
+ */
+public class SensorSnapshot {
+
+    private static final List<CachedEncoder> ENCODERS = new ArrayList<>();
+    private static final List<CachedSwitch> SWITCHES = new ArrayList<>();
+
+    public static class CachedEncoder {
+
+        private final RelativeEncoder encoder;
+        private double position;
+        private double velocity;
+
+        private CachedEncoder(RelativeEncoder encoder) {
+            this.encoder = encoder;
+            refresh();
+        }
+
+        /** Reads the encoder right now (normally you'd let the snapshot do this) */
+        public void refresh() {
+            position = encoder.getPosition();
+            velocity = encoder.getVelocity();
+        }
+
+        /** @return the position as of the last refresh */
+        public double getPosition() {
+            return position;
+        }
+
+        /** @return the velocity as of the last refresh */
+        public double getVelocity() {
+            return velocity;
+        }
+    }
+
+    public static class CachedSwitch {
+
+        private final DigitalInput input;
+        private boolean value;
+
+        private CachedSwitch(DigitalInput input) {
+            this.input = input;
+            refresh();
+        }
+
+        public void refresh() {
+            value = input.get();
+        }
+
+        /** @return the switch value as of the last refresh */
+        public boolean get() {
+            return value;
+        }
+
+        /** @return the switch value right now (doesn't change what {@link #get()} says) */
+        public boolean readNow() {
+            return input.get();
+        }
+    }
+
+    public static CachedEncoder track(RelativeEncoder encoder) {
+        CachedEncoder cached = new CachedEncoder(encoder);
+        ENCODERS.add(cached);
+        return cached;
+    }
+
+    public static CachedSwitch track(DigitalInput input) {
+        CachedSwitch cached = new CachedSwitch(input);
+        SWITCHES.add(cached);
+        return cached;
+    }
+
+    /**
+     * Reads every registered sensor. Call this once, at the start of the loop.
+     */
+    public static void refresh() {
+        for (int i=0; i<ENCODERS.size(); i++) {
+            ENCODERS.get(i).refresh();
+        }
+        for (int i=0; i<SWITCHES.size(); i++) {
+            SWITCHES.get(i).refresh();
+        }
+    }
+}
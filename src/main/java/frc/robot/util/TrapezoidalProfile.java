@@ -0,0 +1,99 @@
+package frc.robot.util;
+
+/**
+ * A trapezoidal motion profile: speeds up at a fixed acceleration, cruises at a
+ * maximum velocity, and slows down at the same rate so it arrives at the goal
+ * with no speed left over.
+ *
+ * Rather than planning the whole move up front, each call to {@link #calculate}
+ * steps the setpoint forward from wherever it is now. That means the goal can be
+ * changed in the middle of a move (say, the indexer gets told to rotate again
+ * while it's still rotating) and the setpoint just carries on from its current
+ * speed instead of starting over. Nothing gets allocated.
+ *
+ * Units are up to the caller; the velocity and acceleration just have to match
+ * (e.g. rotations, rotations per second and rotations per second per second).
+ */
+public class TrapezoidalProfile {
+
+    private double maxVelocity;
+    private double maxAcceleration;
+    private double position;
+    private double velocity;
+
+    public TrapezoidalProfile(double maxVelocity, double maxAcceleration) {
+        setConstraints(maxVelocity, maxAcceleration);
+    }
+
+    public void setConstraints(double newMaxVelocity, double newMaxAcceleration) {
+        maxVelocity = Math.abs(newMaxVelocity);
+        maxAcceleration = Math.abs(newMaxAcceleration);
+    }
+
+    public double getMaxVelocity() {
+        return maxVelocity;
+    }
+
+    public double getMaxAcceleration() {
+        return maxAcceleration;
+    }
+
+    /**
+     * Puts the setpoint at a position, standing still
+     */
+    public void reset(double newPosition) {
+        position = newPosition;
+        velocity = 0.0;
+    }
+
+    /** @return where the setpoint is now */
+    public double getPosition() {
+        return position;
+    }
+
+    /** @return how fast the setpoint is moving now */
+    public double getVelocity() {
+        return velocity;
+    }
+
+    /** @return true if the setpoint is sitting still at the goal */
+    public boolean isFinished(double goal) {
+        return velocity == 0.0 && position == goal;
+    }
+
+    /**
+     * Moves the setpoint along towards a goal.
+     *
+     * @param goal where we want to end up
+     * @param dt how much time (in seconds) has gone by since the last call
+     * @return the new setpoint position
+     */
+    public double calculate(double goal, double dt) {
+        double remaining = goal - position;
+        if (remaining == 0.0 && velocity == 0.0) {
+            return position;
+        }
+        double direction = remaining >= 0.0 ? 1.0 : -1.0;
+        double step = maxAcceleration * dt;
+
+        if (velocity * direction < 0.0) {
+            // heading the wrong way (the goal changed), turn around
+            velocity += direction * step;
+        } else if (Math.abs(remaining) <= velocity * velocity / (2.0 * maxAcceleration)) {
+            // time to start slowing down, but never so much that we stop short
+            velocity -= direction * Math.min(step, Math.abs(velocity));
+            if (velocity == 0.0) {
+                velocity = direction * Math.min(step, maxVelocity);
+            }
+        } else {
+            velocity = MathUtil.clamp(velocity + direction * step, -maxVelocity, maxVelocity);
+        }
+
+        position += velocity * dt;
+        if ((goal - position) * direction <= 0.0 && velocity * direction >= 0.0) {
+            position = goal;
+            velocity = 0.0;
+        }
+        return position;
+    }
+}
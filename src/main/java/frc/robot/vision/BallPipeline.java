@@ -0,0 +1,149 @@
+package frc.robot.vision;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.opencv.core.Core;
+import org.opencv.core.Mat;
+import org.opencv.core.MatOfPoint;
+import org.opencv.core.Rect;
+import org.opencv.core.Scalar;
+import org.opencv.core.Size;
+import org.opencv.imgproc.Imgproc;
+
+import edu.wpi.first.wpilibj.DriverStation.Alliance;
+
+/**
+ * Finds the biggest ball of our alliance's color in a camera frame.
+ *
+ * The frame gets converted to HSV and thresholded on the ball color (red wraps
+ * around the end of the hue range, so it takes two thresholds). An "open" then
+ * cleans up specks, and of the blobs that are left, we take the biggest one
+ * that's round enough. A blob counts as round if it fills enough of the circle
+ * around its bounding box; bumpers and tape are long and skinny, so they don't.
+ *
+ * Every Mat the pipeline needs is allocated once, up front. The contours are the
+ * exception, because OpenCV insists on making new ones for every frame (we release
+ * them on the next frame rather than waiting for the garbage collector).
+ *
+ * Not thread safe: one thread runs it.
+ */
+public class BallPipeline {
+
+    // OpenCV hues go from 0 to 180. These are typical ball colors, not yet
+    // checked against our balls under field lights
+    public static final Scalar BLUE_LOW = new Scalar(95, 120, 50);
+    public static final Scalar BLUE_HIGH = new Scalar(125, 255, 255);
+    public static final Scalar RED_LOW = new Scalar(0, 120, 70);
+    public static final Scalar RED_HIGH = new Scalar(10, 255, 255);
+    public static final Scalar RED_WRAP_LOW = new Scalar(170, 120, 70);
+    public static final Scalar RED_WRAP_HIGH = new Scalar(180, 255, 255);
+
+    /** Blobs smaller than this (in square pixels) are noise */
+    public static final double MIN_AREA = 60.0;
+
+    /** How much of its bounding circle a blob has to fill to count as a ball */
+    public static final double MIN_FILL = 0.5;
+
+    private final Mat hsv;
+    private final Mat mask;
+    private final Mat wrapMask;
+    private final Mat hierarchy;
+    private final Mat kernel;
+    private final List<MatOfPoint> contours;
+    private Scalar low;
+    private Scalar high;
+    private Scalar wrapLow;
+    private Scalar wrapHigh;
+    private boolean found;
+    private double centerX;
+    private double centerY;
+    private double diameter;
+
+    public BallPipeline() {
+        this.hsv = new Mat();
+        this.mask = new Mat();
+        this.wrapMask = new Mat();
+        this.hierarchy = new Mat();
+        this.kernel = Imgproc.getStructuringElement(Imgproc.MORPH_ELLIPSE, new Size(5, 5));
+        this.contours = new ArrayList<>();
+        setAlliance(Alliance.Blue);
+    }
+
+    /** Looks for red balls or blue ones (if we don't know yet, blue) */
+    public void setAlliance(Alliance alliance) {
+        if (alliance == Alliance.Red) {
+            low = RED_LOW;
+            high = RED_HIGH;
+            wrapLow = RED_WRAP_LOW;
+            wrapHigh = RED_WRAP_HIGH;
+        } else {
+            low = BLUE_LOW;
+            high = BLUE_HIGH;
+            wrapLow = null;
+            wrapHigh = null;
+        }
+    }
+
+    /**
+     * Looks for a ball in a frame
+     *
+     * @param frame a BGR image, straight from the camera
+     * @return true if we found one
+     */
+    public boolean process(Mat frame) {
+        Imgproc.cvtColor(frame, hsv, Imgproc.COLOR_BGR2HSV);
+        Core.inRange(hsv, low, high, mask);
+        if (wrapLow != null) {
+            Core.inRange(hsv, wrapLow, wrapHigh, wrapMask);
+            Core.bitwise_or(mask, wrapMask, mask);
+        }
+        Imgproc.morphologyEx(mask, mask, Imgproc.MORPH_OPEN, kernel);
+
+        for (int i=0; i<contours.size(); i++) {
+            contours.get(i).release();
+        }
+        contours.clear();
+        Imgproc.findContours(mask, contours, hierarchy, Imgproc.RETR_EXTERNAL, Imgproc.CHAIN_APPROX_SIMPLE);
+
+        double bestArea = 0.0;
+        for (int i=0; i<contours.size(); i++) {
+            MatOfPoint contour = contours.get(i);
+            double area = Imgproc.contourArea(contour);
+            if (area < MIN_AREA || area <= bestArea) {
+                continue;
+            }
+            Rect box = Imgproc.boundingRect(contour);
+            double size = Math.max(box.width, box.height);
+            if (area / (Math.PI * size * size / 4.0) < MIN_FILL) {
+                continue;
+            }
+            bestArea = area;
+            centerX = box.x + box.width / 2.0;
+            centerY = box.y + box.height / 2.0;
+            diameter = size;
+        }
+        found = bestArea > 0.0;
+        return found;
+    }
+
+    /** @return true if the last frame had a ball in it */
+    public boolean isFound() {
+        return found;
+    }
+
+    /** @return the middle of the ball, in pixels from the left edge */
+    public double getCenterX() {
+        return centerX;
+    }
+
+    /** @return the middle of the ball, in pixels from the top edge */
+    public double getCenterY() {
+        return centerY;
+    }
+
+    /** @return how wide the ball is, in pixels */
+    public double getDiameter() {
+        return diameter;
+    }
+}